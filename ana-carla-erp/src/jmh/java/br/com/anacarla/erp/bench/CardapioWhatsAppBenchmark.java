@@ -0,0 +1,69 @@
+package br.com.anacarla.erp.bench;
+
+import br.com.anacarla.erp.domain.CardapioItem;
+import br.com.anacarla.erp.domain.enums.CategoriaCardapio;
+import br.com.anacarla.erp.repository.CardapioItemRepository;
+import br.com.anacarla.erp.service.CardapioWhatsAppFormatter;
+import br.com.anacarla.erp.web.dto.CardapioWhatsAppTextoDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renderização do texto do cardápio para WhatsApp (sem o cache "cardapio"), com e sem o
+ * cálculo do ETag.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CardapioWhatsAppBenchmark {
+
+    @Param({"10", "60"})
+    private int itens;
+
+    private CardapioWhatsAppFormatter formatter;
+
+    @Setup
+    public void preparar() {
+        CategoriaCardapio[] categorias = CategoriaCardapio.values();
+        List<CardapioItem> cardapio = new ArrayList<>(itens);
+        for (int i = 0; i < itens; i++) {
+            CardapioItem item = new CardapioItem();
+            item.setCategoria(categorias[i % categorias.length]);
+            item.setNome("Item " + i);
+            item.setPreco(BigDecimal.valueOf(990 + i * 150L, 2));
+            item.setDescricao(i % 3 == 0 ? "Descrição do item " + i : null);
+            item.setOrdem(i);
+            cardapio.add(item);
+        }
+        formatter = new CardapioWhatsAppFormatter(RepositoriosFalsos.criar(CardapioItemRepository.class, Map.of(
+                "findByAtivoOrderByOrdemAsc", args -> cardapio)));
+    }
+
+    @Benchmark
+    public String formatarTexto() {
+        return formatter.formatarParaWhatsApp();
+    }
+
+    @Benchmark
+    public CardapioWhatsAppTextoDTO formatarTextoComEtag() {
+        return formatter.textoWhatsApp();
+    }
+}
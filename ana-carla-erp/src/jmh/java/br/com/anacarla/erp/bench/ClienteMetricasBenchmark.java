@@ -0,0 +1,107 @@
+package br.com.anacarla.erp.bench;
+
+import br.com.anacarla.erp.domain.Cliente;
+import br.com.anacarla.erp.domain.Pedido;
+import br.com.anacarla.erp.domain.enums.CanalPedido;
+import br.com.anacarla.erp.domain.enums.StatusPedido;
+import br.com.anacarla.erp.repository.ClienteRepository;
+import br.com.anacarla.erp.repository.PedidoRepository;
+import br.com.anacarla.erp.service.ClienteAutocompleteIndex;
+import br.com.anacarla.erp.service.ClienteMetricasService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Métricas de cliente (agregados, ticket médio, intervalo de recompra e RFM): recálculo
+ * completo sobre o histórico de entregas x registro incremental de uma nova entrega.
+ *
+ * O incremental registra e remove a mesma entrega em cada chamada: o agregado volta ao
+ * histórico do parâmetro, em vez de crescer a cada invocação durante a medição.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ClienteMetricasBenchmark {
+
+    private static final BigDecimal VALOR_ENTREGA = BigDecimal.valueOf(3590, 2);
+
+    @Param({"10", "100", "1000"})
+    private int entregas;
+
+    private ClienteMetricasService service;
+    private Cliente cliente;
+    private UUID pedidoId;
+    private Instant novaEntrega;
+
+    @Setup
+    public void preparar() {
+        cliente = new Cliente();
+        cliente.setId(UUID.randomUUID());
+        cliente.setNome("Cliente Benchmark");
+
+        Instant inicio = Instant.now().minus(entregas * 7L, ChronoUnit.DAYS);
+        List<Pedido> pedidos = new ArrayList<>(entregas);
+        for (int i = 0; i < entregas; i++) {
+            Pedido pedido = new Pedido();
+            pedido.setId(UUID.randomUUID());
+            pedido.setClienteId(cliente.getId());
+            pedido.setStatus(StatusPedido.ENTREGUE);
+            pedido.setCanal(CanalPedido.WHATSAPP);
+            pedido.setValorTotal(BigDecimal.valueOf(2000 + (i * 37L) % 3000, 2));
+            pedido.setDataEntrega(inicio.plus(i * 7L, ChronoUnit.DAYS));
+            pedidos.add(pedido);
+        }
+        Instant ultimaEntrega = pedidos.get(entregas - 1).getDataEntrega();
+        pedidoId = UUID.randomUUID();
+        novaEntrega = ultimaEntrega.plus(7, ChronoUnit.DAYS);
+
+        ClienteRepository clienteRepository = RepositoriosFalsos.criar(ClienteRepository.class, Map.of(
+                "findById", args -> Optional.of(cliente),
+                "findByIdParaAtualizacao", args -> Optional.of(cliente),
+                "save", args -> args[0]));
+        PedidoRepository pedidoRepository = RepositoriosFalsos.criar(PedidoRepository.class, Map.of(
+                "findPedidosEntreguesDoCliente", args -> pedidos,
+                "findEntregaAnterior", args -> List.of(ultimaEntrega)));
+        service = new ClienteMetricasService(clienteRepository, pedidoRepository, null,
+                new ClienteAutocompleteIndex(clienteRepository), new ConcurrentMapCacheManager("metricas"));
+
+        // Agregados consistentes para o caminho incremental
+        service.recalcularMetricasCliente(cliente.getId());
+    }
+
+    @Benchmark
+    public Map<String, Object> recalcularMetricas() {
+        service.recalcularMetricasCliente(cliente.getId());
+        return cliente.getRfm();
+    }
+
+    @Benchmark
+    public Map<String, Object> registrarEntregaIncremental() {
+        service.registrarEntrega(cliente.getId(), pedidoId, novaEntrega, VALOR_ENTREGA);
+        Map<String, Object> rfm = cliente.getRfm();
+        service.removerEntrega(cliente.getId(), pedidoId, novaEntrega, VALOR_ENTREGA);
+        return rfm;
+    }
+}
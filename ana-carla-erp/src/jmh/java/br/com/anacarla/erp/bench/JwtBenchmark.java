@@ -0,0 +1,59 @@
+package br.com.anacarla.erp.bench;
+
+import br.com.anacarla.erp.domain.User;
+import br.com.anacarla.erp.domain.enums.UserRole;
+import br.com.anacarla.erp.service.JwtService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Emissão (login) e validação (toda requisição autenticada) de tokens JWT.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JwtBenchmark {
+
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void preparar() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", "Ana-Carla-ERP-Benchmark-Secret-Key-Min-256-Bits-0123456789");
+        ReflectionTestUtils.setField(jwtService, "expiration", 86400L);
+
+        user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail("admin@anacarla.com.br");
+        user.setNome("Administrador");
+        user.setRole(UserRole.ADMIN);
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String gerarToken() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public Boolean validarToken() {
+        return jwtService.validateToken(token, user);
+    }
+}
@@ -0,0 +1,99 @@
+package br.com.anacarla.erp.bench;
+
+import br.com.anacarla.erp.domain.Cliente;
+import br.com.anacarla.erp.domain.Pedido;
+import br.com.anacarla.erp.domain.PedidoItem;
+import br.com.anacarla.erp.domain.enums.CanalPedido;
+import br.com.anacarla.erp.domain.enums.StatusPedido;
+import br.com.anacarla.erp.web.dto.ClienteDTO;
+import br.com.anacarla.erp.web.dto.ClienteMetricasDTO;
+import br.com.anacarla.erp.web.dto.PedidoDTO;
+import br.com.anacarla.erp.web.mapper.ClienteMapper;
+import br.com.anacarla.erp.web.mapper.ClienteMapperImpl;
+import br.com.anacarla.erp.web.mapper.PedidoMapper;
+import br.com.anacarla.erp.web.mapper.PedidoMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapeamento entidade → DTO (MapStruct) dos objetos mais serializados: pedido com itens e
+ * cliente com métricas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MapeamentoDtoBenchmark {
+
+    private final PedidoMapper pedidoMapper = new PedidoMapperImpl();
+    private final ClienteMapper clienteMapper = new ClienteMapperImpl();
+
+    private Pedido pedido;
+    private Cliente cliente;
+
+    @Setup
+    public void preparar() {
+        cliente = new Cliente();
+        cliente.setId(UUID.randomUUID());
+        cliente.setNome("Maria da Silva");
+        cliente.setEmail("maria@example.com");
+        cliente.setTelefones("5511987654321");
+        cliente.setCpfCnpj("12345678900");
+        cliente.setTotalPedidos(12);
+        cliente.setValorTotal(BigDecimal.valueOf(45600, 2));
+        cliente.setTicketMedio(BigDecimal.valueOf(3800, 2));
+        cliente.setUltimaCompra(Instant.now());
+        cliente.setRecenciaDias(3);
+        cliente.setIntervaloMedioRecompra(7);
+        cliente.setRfm(Map.of("R", 5, "F", 4, "M", 4, "cluster", "LEAL"));
+
+        pedido = new Pedido();
+        pedido.setId(UUID.randomUUID());
+        pedido.setClienteId(cliente.getId());
+        pedido.setCliente(cliente);
+        pedido.setStatus(StatusPedido.PREPARANDO);
+        pedido.setCanal(CanalPedido.WHATSAPP);
+        pedido.setDataCriacao(Instant.now());
+        pedido.setValorTotal(BigDecimal.ZERO);
+        for (int i = 0; i < 5; i++) {
+            PedidoItem item = new PedidoItem();
+            item.setId(UUID.randomUUID());
+            item.setNome("Marmita " + i);
+            item.setPrecoUnit(BigDecimal.valueOf(2590, 2));
+            item.setQuantidade(i + 1);
+            pedido.addItem(item);
+            pedido.setValorTotal(pedido.getValorTotal().add(item.getSubtotal()));
+        }
+    }
+
+    @Benchmark
+    public PedidoDTO pedidoParaDto() {
+        return pedidoMapper.toDTO(pedido);
+    }
+
+    @Benchmark
+    public ClienteDTO clienteParaDto() {
+        return clienteMapper.toDTO(cliente);
+    }
+
+    @Benchmark
+    public ClienteMetricasDTO clienteParaMetricasDto() {
+        return clienteMapper.toMetricasDTO(cliente);
+    }
+}
@@ -0,0 +1,28 @@
+package br.com.anacarla.erp.bench;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Repositórios em memória para medir a lógica dos serviços sem banco: só os métodos
+ * informados respondem, qualquer outro falha (o benchmark não deve depender dele).
+ */
+final class RepositoriosFalsos {
+
+    private RepositoriosFalsos() {
+    }
+
+    static <T> T criar(Class<T> tipo, Map<String, Function<Object[], Object>> metodos) {
+        return tipo.cast(Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, (proxy, metodo, args) -> {
+            Function<Object[], Object> implementacao = metodos.get(metodo.getName());
+            if (implementacao != null) {
+                return implementacao.apply(args);
+            }
+            if (metodo.getName().equals("toString")) {
+                return "RepositorioFalso[" + tipo.getSimpleName() + "]";
+            }
+            throw new UnsupportedOperationException(tipo.getSimpleName() + "." + metodo.getName());
+        }));
+    }
+}
@@ -0,0 +1,55 @@
+package br.com.anacarla.erp.bench;
+
+import br.com.anacarla.erp.domain.PedidoItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Valor total do pedido pela soma de PedidoItem.getSubtotal (como em PedidoService).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SubtotalPedidoBenchmark {
+
+    @Param({"3", "20", "200"})
+    private int itens;
+
+    private List<PedidoItem> pedidoItens;
+
+    @Setup
+    public void preparar() {
+        pedidoItens = new ArrayList<>(itens);
+        for (int i = 0; i < itens; i++) {
+            PedidoItem item = new PedidoItem();
+            item.setNome("Item " + i);
+            item.setPrecoUnit(BigDecimal.valueOf(1990 + i * 10L, 2));
+            item.setQuantidade(1 + i % 4);
+            pedidoItens.add(item);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal somarSubtotais() {
+        return pedidoItens.stream()
+                .map(PedidoItem::getSubtotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
@@ -0,0 +1,370 @@
+package br.com.anacarla.erp.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Propaga remoções dos caches locais entre réplicas via LISTEN/NOTIFY do Postgres.
+ * <p>
+ * Cada réplica mantém uma conexão dedicada (fora do pool) em LISTEN no canal configurado.
+ * O NOTIFY vai na própria conexão da transação que causou a remoção, logo antes do commit: o
+ * Postgres só o entrega se a transação confirmar, e a escrita não precisa de uma segunda
+ * conexão do pool. Todas as réplicas, inclusive a de origem, aplicam a notificação; assim uma
+ * leitura concorrente que tenha reposto o valor antigo antes do commit também é descartada. Se
+ * a conexão de escuta cair, os caches locais são limpos ao reconectar, pois notificações podem
+ * ter sido perdidas.
+ * <p>
+ * Outros componentes podem escutar canais próprios na mesma conexão ({@link #assinar}) e
+ * notificá-los com as mesmas garantias ({@link #notificar}), como os eventos de pedidos.
+ * <p>
+ * Fora do Postgres (H2 em desenvolvimento) o barramento fica inativo e os caches são apenas
+ * locais.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CacheInvalidacaoBus implements SmartInitializingSingleton {
+
+    // Tipos de chave que sobrevivem à ida e volta como texto; outros invalidam o cache inteiro
+    private static final Set<Class<?>> CHAVES_SIMPLES = Set.of(
+            String.class, UUID.class, Boolean.class, Integer.class, Long.class);
+    private static final long ESPERA_RECONEXAO_MS = 5000;
+
+    private final DataSource dataSource;
+    private final DataSourceProperties dataSourceProperties;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, CaffeineCacheDistribuido> caches = new ConcurrentHashMap<>();
+    private final Map<String, Assinatura> assinaturas = new ConcurrentHashMap<>();
+
+    @Value("${app.cache.invalidacao.enabled:true}")
+    private boolean habilitado;
+
+    @Value("${app.cache.invalidacao.canal:cache_invalidacao}")
+    private String canal;
+
+    @Value("${app.cache.invalidacao.timeout-ms:5000}")
+    private int timeoutMs;
+
+    private volatile boolean ativo;
+    private volatile Connection conexaoEscuta;
+    private JdbcTemplate jdbcTemplate;
+    private Thread escuta;
+    private Counter enviadas;
+    private Counter recebidas;
+    private Counter falhas;
+
+    @PostConstruct
+    void iniciar() {
+        String url = dataSourceProperties.determineUrl();
+        if (!habilitado || url == null || !url.startsWith("jdbc:postgresql:")) {
+            log.info("Invalidação distribuída de cache inativa; caches apenas locais");
+            return;
+        }
+        enviadas = Counter.builder("cache.invalidacao.enviadas")
+                .description("Remoções de cache notificadas às réplicas")
+                .register(meterRegistry);
+        recebidas = Counter.builder("cache.invalidacao.recebidas")
+                .description("Remoções de cache recebidas pelo canal de invalidação")
+                .register(meterRegistry);
+        falhas = Counter.builder("cache.invalidacao.falhas")
+                .description("Falhas ao notificar ou escutar o canal de invalidação")
+                .register(meterRegistry);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        ativo = true;
+    }
+
+    // Escuta só depois de criados todos os beans: os canais de assinar(...) já estão registrados
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!ativo) {
+            return;
+        }
+        escuta = new Thread(this::escutar, "cache-invalidacao");
+        escuta.setDaemon(true);
+        escuta.start();
+        log.info("Invalidação distribuída de cache ativa no canal {}", canal);
+    }
+
+    @PreDestroy
+    void encerrar() {
+        if (!ativo) {
+            return;
+        }
+        ativo = false;
+        fecharConexaoEscuta();
+        if (escuta == null) {
+            return;
+        }
+        try {
+            escuta.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void registrar(CaffeineCacheDistribuido cache) {
+        caches.put(cache.getName(), cache);
+    }
+
+    /**
+     * Escuta um canal próprio na conexão do barramento; só tem efeito com o barramento ativo e
+     * deve ser chamado na inicialização do bean. aoReconectar roda quando a conexão de escuta
+     * volta após uma queda (mensagens podem ter sido perdidas).
+     */
+    public void assinar(String canal, Consumer<String> receptor, Runnable aoReconectar) {
+        if (canal.equals(this.canal)) {
+            throw new IllegalArgumentException("Canal reservado à invalidação de cache: " + canal);
+        }
+        assinaturas.put(canal, new Assinatura(receptor, aoReconectar));
+    }
+
+    /**
+     * Notifica as réplicas da remoção de uma chave ({@code null}: o cache inteiro). Dentro de
+     * uma transação, a notificação só é entregue após o commit e é descartada no rollback.
+     */
+    public void publicar(String cache, Object chave) {
+        if (!ativo) {
+            return;
+        }
+        notificar(canal, mensagem(cache, chave));
+    }
+
+    /**
+     * Envia uma mensagem (até 8000 bytes) a todas as réplicas que escutam o canal, inclusive
+     * esta. Dentro de uma transação, só é entregue após o commit, na ordem dos commits.
+     */
+    public void notificar(String canal, String mensagem) {
+        if (!ativo) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new NotificacaoNaTransacao(canal, mensagem));
+        } else {
+            notificarForaDaTransacao(canal, mensagem);
+        }
+    }
+
+    public boolean isAtivo() {
+        return ativo;
+    }
+
+    // Conexão própria do pool em autocommit: não há transação de origem (ou ela já terminou)
+    private void notificarForaDaTransacao(String canal, String mensagem) {
+        try (Connection conexao = dataSource.getConnection();
+             PreparedStatement ps = conexao.prepareStatement("SELECT pg_notify(?, ?)")) {
+            if (!conexao.getAutoCommit()) {
+                conexao.setAutoCommit(true);
+            }
+            ps.setString(1, canal);
+            ps.setString(2, mensagem);
+            ps.execute();
+            contarEnvio(canal);
+        } catch (SQLException e) {
+            falhas.increment();
+            log.warn("Erro ao notificar o canal {} ({}): {}", canal, mensagem, e.getMessage());
+        }
+    }
+
+    // enviadas/recebidas contam só as invalidações de cache; falhas, todo o barramento
+    private void contarEnvio(String canal) {
+        if (canal.equals(this.canal)) {
+            enviadas.increment();
+        }
+    }
+
+    /**
+     * NOTIFY na conexão da transação, antes do commit. Se a sincronização for registrada já na
+     * finalização (durante um afterCommit, quando beforeCommit não é mais chamado) ou a
+     * transação for somente leitura (pode estar na réplica, onde NOTIFY não é permitido), a
+     * notificação sai após o commit em uma conexão própria.
+     */
+    private final class NotificacaoNaTransacao implements TransactionSynchronization {
+
+        private final String canal;
+        private final String mensagem;
+        private boolean naTransacao;
+
+        private NotificacaoNaTransacao(String canal, String mensagem) {
+            this.canal = canal;
+            this.mensagem = mensagem;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (readOnly) {
+                return;
+            }
+            try {
+                jdbcTemplate.execute("SELECT pg_notify(?, ?)", (PreparedStatementCallback<Boolean>) ps -> {
+                    ps.setString(1, canal);
+                    ps.setString(2, mensagem);
+                    return ps.execute();
+                });
+                naTransacao = true;
+            } catch (DataAccessException e) {
+                // A transação já está abortada no Postgres: falha a escrita em vez de perder a invalidação
+                falhas.increment();
+                throw e;
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status != STATUS_COMMITTED) {
+                return;
+            }
+            if (naTransacao) {
+                contarEnvio(canal);
+            } else {
+                notificarForaDaTransacao(canal, mensagem);
+            }
+        }
+    }
+
+    private void escutar() {
+        boolean reconexao = false;
+        while (ativo) {
+            try (Connection conexao = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                conexaoEscuta = conexao;
+                try (Statement st = conexao.createStatement()) {
+                    st.execute("LISTEN " + canal);
+                    for (String outro : assinaturas.keySet()) {
+                        st.execute("LISTEN " + outro);
+                    }
+                }
+                if (reconexao) {
+                    log.info("Canal de invalidação de cache reconectado; limpando caches locais");
+                    caches.values().forEach(CaffeineCacheDistribuido::limparLocal);
+                    assinaturas.values().forEach(a -> a.aoReconectar().run());
+                }
+                reconexao = true;
+
+                PGConnection pg = conexao.unwrap(PGConnection.class);
+                while (ativo) {
+                    PGNotification[] notificacoes = pg.getNotifications(timeoutMs);
+                    if (notificacoes != null) {
+                        for (PGNotification notificacao : notificacoes) {
+                            entregar(notificacao);
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!ativo) {
+                    break;
+                }
+                falhas.increment();
+                reconexao = true;
+                log.warn("Conexão de escuta de invalidação de cache perdida: {}", e.getMessage());
+                dormir(ESPERA_RECONEXAO_MS);
+            } finally {
+                conexaoEscuta = null;
+            }
+        }
+    }
+
+    private void entregar(PGNotification notificacao) {
+        Assinatura assinatura = assinaturas.get(notificacao.getName());
+        if (assinatura == null) {
+            aplicar(notificacao.getParameter());
+            return;
+        }
+        try {
+            assinatura.receptor().accept(notificacao.getParameter());
+        } catch (RuntimeException e) {
+            falhas.increment();
+            log.warn("Erro ao tratar notificação do canal {}: {}", notificacao.getName(), e.getMessage());
+        }
+    }
+
+    private void aplicar(String mensagem) {
+        try {
+            MensagemInvalidacao m = objectMapper.readValue(mensagem, MensagemInvalidacao.class);
+            CaffeineCacheDistribuido cache = caches.get(m.cache());
+            if (cache == null) {
+                return;
+            }
+            recebidas.increment();
+            if (m.chave() == null) {
+                cache.limparLocal();
+            } else {
+                Class<?> tipo = CHAVES_SIMPLES.stream()
+                        .filter(c -> c.getName().equals(m.tipo()))
+                        .findFirst()
+                        .orElseThrow(() -> new IllegalArgumentException("Tipo de chave não suportado: " + m.tipo()));
+                cache.removerLocal(DefaultConversionService.getSharedInstance().convert(m.chave(), tipo));
+            }
+        } catch (Exception e) {
+            falhas.increment();
+            log.warn("Mensagem de invalidação de cache inválida ({}): {}", mensagem, e.getMessage());
+        }
+    }
+
+    private String mensagem(String cache, Object chave) {
+        MensagemInvalidacao m = chave != null && CHAVES_SIMPLES.contains(chave.getClass())
+                ? new MensagemInvalidacao(cache, chave.toString(), chave.getClass().getName())
+                : new MensagemInvalidacao(cache, null, null);
+        try {
+            return objectMapper.writeValueAsString(m);
+        } catch (Exception e) {
+            throw new IllegalStateException("Erro ao serializar invalidação de cache", e);
+        }
+    }
+
+    private void fecharConexaoEscuta() {
+        Connection conexao = conexaoEscuta;
+        if (conexao != null) {
+            try {
+                conexao.close();
+            } catch (SQLException e) {
+                log.debug("Erro ao fechar conexão de escuta: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static void dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Assinatura(Consumer<String> receptor, Runnable aoReconectar) {
+    }
+
+    record MensagemInvalidacao(String cache, String chave, String tipo) {
+    }
+}
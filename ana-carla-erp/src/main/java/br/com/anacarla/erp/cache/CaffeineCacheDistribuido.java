@@ -0,0 +1,57 @@
+package br.com.anacarla.erp.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+/**
+ * Cache Caffeine local cujas remoções (evict/clear, inclusive as de {@code @CacheEvict}) são
+ * propagadas às demais réplicas pelo {@link CacheInvalidacaoBus}. Continua sendo um
+ * {@link CaffeineCache}, então as estatísticas seguem registradas no Micrometer.
+ */
+public class CaffeineCacheDistribuido extends CaffeineCache {
+
+    private final CacheInvalidacaoBus invalidacaoBus;
+
+    public CaffeineCacheDistribuido(String name, Cache<Object, Object> cache, boolean allowNullValues,
+                                    CacheInvalidacaoBus invalidacaoBus) {
+        super(name, cache, allowNullValues);
+        this.invalidacaoBus = invalidacaoBus;
+        invalidacaoBus.registrar(this);
+    }
+
+    @Override
+    public void evict(Object key) {
+        super.evict(key);
+        invalidacaoBus.publicar(getName(), key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean presente = super.evictIfPresent(key);
+        invalidacaoBus.publicar(getName(), key);
+        return presente;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        invalidacaoBus.publicar(getName(), null);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean existiam = super.invalidate();
+        invalidacaoBus.publicar(getName(), null);
+        return existiam;
+    }
+
+    // Remoções recebidas de outra réplica: só locais, sem nova publicação
+
+    void removerLocal(Object key) {
+        super.evict(key);
+    }
+
+    void limparLocal() {
+        super.invalidate();
+    }
+}
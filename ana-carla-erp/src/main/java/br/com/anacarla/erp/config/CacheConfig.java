@@ -1,30 +1,50 @@
 package br.com.anacarla.erp.config;
 
+import br.com.anacarla.erp.cache.CacheInvalidacaoBus;
+import br.com.anacarla.erp.cache.CaffeineCacheDistribuido;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.util.List;
 
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    @Value("${app.cache.ttl:60s}")
+    private Duration ttl;
+
+    /**
+     * Caches declarados aqui existem desde a inicialização, então o actuator registra suas
+     * estatísticas no Micrometer (cache.gets, cache.puts, cache.evictions, cache.size, com a
+     * tag name). Nomes fora desta lista não são criados sob demanda.
+     * <p>
+     * As remoções são propagadas às outras réplicas pelo {@link CacheInvalidacaoBus}.
+     */
     @Bean
-    public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("cardapio", "metricas");
+    public CacheManager cacheManager(CacheInvalidacaoBus invalidacaoBus) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new CaffeineCacheDistribuido(name, cache, isAllowNullValues(), invalidacaoBus);
+            }
+        };
         cacheManager.setCaffeine(caffeineCacheBuilder());
+        cacheManager.setCacheNames(List.of("cardapio", "metricas"));
         return cacheManager;
     }
 
     private Caffeine<Object, Object> caffeineCacheBuilder() {
         return Caffeine.newBuilder()
                 .maximumSize(500)
-                .expireAfterWrite(60, TimeUnit.SECONDS)
+                .expireAfterWrite(ttl)
                 .recordStats();
     }
 }
-
@@ -0,0 +1,58 @@
+package br.com.anacarla.erp.config;
+
+import br.com.anacarla.erp.sql.ContadorSql;
+import br.com.anacarla.erp.sql.ContadorSqlFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class ContadorSqlConfig {
+
+    /**
+     * Envolve o DataSource num proxy que conta statements e tempo de JDBC por thread
+     * ({@link ContadorSql}). O pool continua acessível por unwrap (métricas do Hikari,
+     * LISTEN/NOTIFY do barramento de cache).
+     */
+    @Bean
+    static BeanPostProcessor contadorSqlDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // Só os pools: roteamento e proxies de delegação contariam o mesmo statement de novo
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)
+                        && !(bean instanceof AbstractRoutingDataSource) && !(bean instanceof DelegatingDataSource)) {
+                    return ProxyDataSourceBuilder.create(beanName, dataSource)
+                            .listener(ContadorSql.listener())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Antes da cadeia do Spring Security, para incluir as consultas de autenticação.
+     */
+    @Bean
+    public FilterRegistrationBean<ContadorSqlFilter> contadorSqlFilter(
+            MeterRegistry meterRegistry,
+            @Value("${app.sql.contador.cabecalho:false}") boolean cabecalho,
+            @Value("${app.sql.contador.metricas:false}") boolean metricas) {
+        FilterRegistrationBean<ContadorSqlFilter> registro =
+                new FilterRegistrationBean<>(new ContadorSqlFilter(meterRegistry, cabecalho, metricas));
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        registro.setEnabled(cabecalho || metricas);
+        return registro;
+    }
+}
@@ -0,0 +1,84 @@
+package br.com.anacarla.erp.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+/**
+ * Com threads virtuais, detecta pinagem (thread virtual presa à portadora ao bloquear dentro
+ * de synchronized ou código nativo, ex.: driver JDBC, Hikari) pelo evento JFR
+ * jdk.VirtualThreadPinned: registra em log a pilha onde ocorreu e publica o timer
+ * jvm.threads.virtual.pinagem no Micrometer.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class PinagemThreadsVirtuaisMonitor {
+
+    private static final String EVENTO = "jdk.VirtualThreadPinned";
+    private static final int QUADROS_NO_LOG = 12;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.threads-virtuais.pinagem.limite-ms:20}")
+    private long limiteMs;
+
+    private RecordingStream stream;
+    private Timer pinagens;
+
+    @PostConstruct
+    void iniciar() {
+        pinagens = Timer.builder("jvm.threads.virtual.pinagem")
+                .description("Threads virtuais bloqueadas presas à thread portadora")
+                .register(meterRegistry);
+
+        stream = new RecordingStream();
+        stream.enable(EVENTO).withThreshold(Duration.ofMillis(limiteMs)).withStackTrace();
+        stream.onEvent(EVENTO, this::registrar);
+        stream.startAsync();
+        log.info("Monitor de pinagem de threads virtuais ativo (eventos acima de {} ms)", limiteMs);
+    }
+
+    @PreDestroy
+    void encerrar() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void registrar(RecordedEvent evento) {
+        pinagens.record(evento.getDuration());
+        String pilha = evento.getStackTrace() == null ? "  (sem pilha)" : evento.getStackTrace().getFrames().stream()
+                // O topo é sempre o park/sleep do próprio JDK; interessa quem segurava o monitor
+                .dropWhile(PinagemThreadsVirtuaisMonitor::internoDoJdk)
+                .limit(QUADROS_NO_LOG)
+                .map(PinagemThreadsVirtuaisMonitor::quadro)
+                .collect(Collectors.joining("\n"));
+        log.warn("Thread virtual {} presa à portadora por {} ms:\n{}",
+                 evento.getThread() != null ? evento.getThread().getJavaName() : "?",
+                 evento.getDuration().toMillis(), pilha);
+    }
+
+    private static boolean internoDoJdk(RecordedFrame quadro) {
+        String classe = quadro.getMethod().getType().getName();
+        return classe.startsWith("java.") || classe.startsWith("jdk.") || classe.startsWith("sun.");
+    }
+
+    private static String quadro(RecordedFrame quadro) {
+        return "  at " + quadro.getMethod().getType().getName() + "." + quadro.getMethod().getName()
+                + (quadro.getLineNumber() > 0 ? ":" + quadro.getLineNumber() : "");
+    }
+}
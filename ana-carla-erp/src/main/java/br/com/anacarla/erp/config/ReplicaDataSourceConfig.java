@@ -0,0 +1,91 @@
+package br.com.anacarla.erp.config;
+
+import br.com.anacarla.erp.datasource.ReplicaMonitor;
+import br.com.anacarla.erp.datasource.RoteamentoDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Réplica de leitura (app.datasource.replica.enabled): dois pools Hikari, "primario" e
+ * "replica", cada um com suas métricas hikaricp.* (tag pool), e um DataSource principal que
+ * roteia as transações somente leitura para a réplica.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primarioDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primario");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Value("${app.datasource.replica.url}") String url,
+            @Value("${app.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${app.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaMonitor replicaMonitor(
+            @Qualifier("replicaDataSource") DataSource replica,
+            MeterRegistry meterRegistry,
+            @Value("${app.datasource.replica.consulta-lag:}") String consultaLag,
+            @Value("${app.datasource.replica.lag-maximo-ms:5000}") long lagMaximoMs) {
+        return new ReplicaMonitor(replica, consultaLag.isBlank() ? ReplicaMonitor.CONSULTA_LAG_POSTGRES : consultaLag,
+                lagMaximoMs, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primarioDataSource") DataSource primario,
+            @Qualifier("replicaDataSource") DataSource replica,
+            ReplicaMonitor replicaMonitor,
+            MeterRegistry meterRegistry) {
+        RoteamentoDataSource roteamento = new RoteamentoDataSource(primario, replica, replicaMonitor, meterRegistry);
+        roteamento.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(roteamento);
+    }
+
+    /**
+     * Com open-in-view, o Hibernate segura a conexão da primeira transação até o fim da
+     * requisição, e as transações seguintes (inclusive escritas) herdariam o destino dela.
+     * Liberando a conexão ao fim de cada transação, cada uma é roteada por conta própria.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer conexaoPorTransacao() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
@@ -0,0 +1,21 @@
+package br.com.anacarla.erp.datasource;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Leitura somente leitura que precisa ver o último commit: vai ao primário mesmo com a réplica
+ * disponível. Para leituras cujo resultado fica guardado (entradas de cache, índices e
+ * agregados em memória reconstruídos a partir do banco), onde um dado defasado da réplica
+ * persistiria até a próxima escrita ou reconstrução.
+ *
+ * Vale para a conexão obtida durante o método; numa transação que já tem conexão, não muda nada.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface LeituraNoPrimario {
+}
@@ -0,0 +1,41 @@
+package br.com.anacarla.erp.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Marca a thread durante os métodos {@link LeituraNoPrimario}; o {@link RoteamentoDataSource}
+ * consulta a marca ao escolher a conexão. Fica por fora das transações e do cache: a conexão
+ * só é obtida no primeiro statement (LazyConnectionDataSourceProxy), já com a marca.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class LeituraNoPrimarioAspect {
+
+    // Contador, e não booleano: métodos marcados podem se chamar
+    private static final ThreadLocal<Integer> PROFUNDIDADE = ThreadLocal.withInitial(() -> 0);
+
+    @Around("@annotation(br.com.anacarla.erp.datasource.LeituraNoPrimario)")
+    public Object noPrimario(ProceedingJoinPoint joinPoint) throws Throwable {
+        PROFUNDIDADE.set(PROFUNDIDADE.get() + 1);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            int profundidade = PROFUNDIDADE.get() - 1;
+            if (profundidade == 0) {
+                PROFUNDIDADE.remove();
+            } else {
+                PROFUNDIDADE.set(profundidade);
+            }
+        }
+    }
+
+    static boolean ativo() {
+        return PROFUNDIDADE.get() > 0;
+    }
+}
@@ -0,0 +1,91 @@
+package br.com.anacarla.erp.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+/**
+ * Acompanha o atraso de replicação da réplica de leitura. Acima de lagMaximoMs (ou se a
+ * réplica não responder), as transações somente leitura voltam ao primário até a próxima
+ * verificação dentro do limite.
+ */
+@Slf4j
+public class ReplicaMonitor {
+
+    /**
+     * Atraso em ms no Postgres: zero fora de recuperação ou com todo o WAL recebido já aplicado
+     * (sem escrita no primário, o horário da última transação aplicada não avança).
+     */
+    public static final String CONSULTA_LAG_POSTGRES = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() THEN 0
+                WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000, 0)
+            END
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String consultaLag;
+    private final long lagMaximoMs;
+
+    private volatile boolean disponivel;
+    private volatile long lagMs = -1;
+    private boolean verificada;
+
+    public ReplicaMonitor(DataSource replica, String consultaLag, long lagMaximoMs, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = new JdbcTemplate(replica);
+        this.consultaLag = consultaLag;
+        this.lagMaximoMs = lagMaximoMs;
+
+        Gauge.builder("datasource.replica.lag", this, monitor -> monitor.lagMs)
+                .description("Atraso de replicação medido na réplica de leitura (-1: sem resposta)")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("datasource.replica.disponivel", this, monitor -> monitor.disponivel ? 1 : 0)
+                .description("1 quando as transações somente leitura estão indo para a réplica")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${app.datasource.replica.verificacao-ms:5000}",
+               initialDelayString = "${app.datasource.replica.verificacao-ms:5000}")
+    public void verificar() {
+        // Loga só as transições (e o estado inicial)
+        boolean registrar = !verificada;
+        boolean anterior = disponivel;
+        verificada = true;
+        try {
+            Double lag = jdbcTemplate.queryForObject(consultaLag, Double.class);
+            lagMs = lag != null ? Math.round(lag) : 0;
+            disponivel = lagMs <= lagMaximoMs;
+            if (registrar || anterior != disponivel) {
+                if (disponivel) {
+                    log.info("Réplica de leitura disponível (atraso {} ms); transações somente leitura na réplica", lagMs);
+                } else {
+                    log.warn("Réplica de leitura com atraso de {} ms (limite {} ms); leituras no primário",
+                             lagMs, lagMaximoMs);
+                }
+            }
+        } catch (DataAccessException e) {
+            lagMs = -1;
+            disponivel = false;
+            if (registrar || anterior) {
+                log.warn("Réplica de leitura sem resposta; leituras no primário: {}", e.getMessage());
+            }
+        }
+    }
+
+    public boolean isDisponivel() {
+        return disponivel;
+    }
+
+    public long getLagMs() {
+        return lagMs;
+    }
+}
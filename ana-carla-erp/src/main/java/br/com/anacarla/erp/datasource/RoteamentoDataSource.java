@@ -0,0 +1,54 @@
+package br.com.anacarla.erp.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Envia transações {@code @Transactional(readOnly = true)} para a réplica de leitura enquanto
+ * o {@link ReplicaMonitor} a considerar em dia; todo o resto (escritas, acesso fora de
+ * transação, Flyway, métodos {@link LeituraNoPrimario}) vai para o primário.
+ *
+ * Deve ficar atrás de um LazyConnectionDataSourceProxy: o gerenciador de transações pede a
+ * conexão antes de marcar a transação como somente leitura.
+ */
+public class RoteamentoDataSource extends AbstractRoutingDataSource {
+
+    enum Destino { PRIMARIO, REPLICA }
+
+    private final ReplicaMonitor replicaMonitor;
+    private final Counter conexoesPrimario;
+    private final Counter conexoesReplica;
+
+    public RoteamentoDataSource(DataSource primario, DataSource replica, ReplicaMonitor replicaMonitor,
+                                MeterRegistry meterRegistry) {
+        this.replicaMonitor = replicaMonitor;
+        setTargetDataSources(Map.of(Destino.PRIMARIO, primario, Destino.REPLICA, replica));
+        setDefaultTargetDataSource(primario);
+        conexoesPrimario = contador(meterRegistry, "primario");
+        conexoesReplica = contador(meterRegistry, "replica");
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !LeituraNoPrimarioAspect.ativo()
+                && replicaMonitor.isDisponivel()) {
+            conexoesReplica.increment();
+            return Destino.REPLICA;
+        }
+        conexoesPrimario.increment();
+        return Destino.PRIMARIO;
+    }
+
+    private static Counter contador(MeterRegistry meterRegistry, String destino) {
+        return Counter.builder("datasource.roteamento.conexoes")
+                .description("Conexões obtidas pelo roteamento de leitura/escrita")
+                .tag("destino", destino)
+                .register(meterRegistry);
+    }
+}
@@ -20,8 +20,9 @@ import java.util.UUID;
 @EntityListeners(AuditingEntityListener.class)
 public abstract class BaseEntity {
 
+    // UUID v7: ordenado no tempo, novas linhas entram no fim do índice da chave primária
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @CreatedDate
@@ -15,7 +15,8 @@ import java.util.Map;
 @Table(name = "clientes", indexes = {
     @Index(name = "idx_cliente_email", columnList = "email"),
     @Index(name = "idx_cliente_cpf_cnpj", columnList = "cpf_cnpj"),
-    @Index(name = "idx_cliente_recencia", columnList = "recencia_dias")
+    @Index(name = "idx_cliente_recencia", columnList = "recencia_dias"),
+    @Index(name = "idx_cliente_updated_at", columnList = "updated_at")
 })
 @Getter
 @Setter
@@ -36,6 +37,10 @@ public class Cliente extends BaseEntity {
     @Column(length = 500)
     private String endereco;
 
+    // Nome, email e telefones normalizados para busca (ver TextoBusca)
+    @Column(name = "busca_normalizada", length = 1000)
+    private String buscaNormalizada;
+
     @Column(name = "data_nascimento")
     private LocalDate dataNascimento;
 
@@ -87,7 +92,23 @@ public class Cliente extends BaseEntity {
     @Column(name = "rfm", columnDefinition = "jsonb")
     private Map<String, Object> rfm;
 
+    // Agregados das entregas, mantidos incrementalmente por ClienteMetricasService
+    @Column(name = "primeira_entrega")
+    private Instant primeiraEntrega;
+
+    @Column(name = "ultima_entrega")
+    private Instant ultimaEntrega;
+
+    @Column(name = "soma_intervalos_dias")
+    @Builder.Default
+    private Long somaIntervalosDias = 0L;
+
     @Column(columnDefinition = "TEXT")
     private String observacoes;
-}
 
+    @PrePersist
+    @PreUpdate
+    void atualizarBuscaNormalizada() {
+        buscaNormalizada = TextoBusca.indexavel(nome, email, telefones);
+    }
+}
@@ -0,0 +1,30 @@
+package br.com.anacarla.erp.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import java.util.UUID;
+
+/**
+ * Telefone normalizado (E.164, só dígitos) de um cliente, mantido a partir de
+ * Cliente.telefones. Um número pertence a no máximo um cliente.
+ */
+@Entity
+@Table(name = "cliente_telefone", indexes = {
+    @Index(name = "uk_cliente_telefone_numero", columnList = "numero", unique = true),
+    @Index(name = "idx_cliente_telefone_cliente", columnList = "cliente_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@SuperBuilder
+public class ClienteTelefone extends BaseEntity {
+
+    @Column(name = "cliente_id", nullable = false)
+    private UUID clienteId;
+
+    @Column(nullable = false, length = 15)
+    private String numero;
+}
@@ -17,7 +17,9 @@ import java.util.UUID;
     @Index(name = "idx_pedido_status", columnList = "status"),
     @Index(name = "idx_pedido_cliente", columnList = "cliente_id"),
     @Index(name = "idx_pedido_data_criacao", columnList = "data_criacao"),
-    @Index(name = "idx_pedido_status_data", columnList = "status,data_criacao")
+    @Index(name = "idx_pedido_status_data_id", columnList = "status,data_criacao DESC,id DESC"),
+    @Index(name = "idx_pedido_cliente_entrega", columnList = "cliente_id,data_entrega"),
+    @Index(name = "idx_pedido_updated_at", columnList = "updated_at")
 })
 @Getter
 @Setter
@@ -0,0 +1,10 @@
+package br.com.anacarla.erp.domain;
+
+import java.util.UUID;
+
+/**
+ * Quantidade somada de um item (itemId + nome) em um pedido em produção; linha da consulta
+ * agregada que reconstrói a produção da cozinha.
+ */
+public record QuantidadeProducao(UUID pedidoId, UUID itemId, String nome, Long quantidade) {
+}
@@ -0,0 +1,83 @@
+package br.com.anacarla.erp.domain;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalização de telefones para E.164 (só dígitos, com DDI), assumindo Brasil quando
+ * o número vem sem DDI. Celulares brasileiros antigos de 8 dígitos (ainda usados como
+ * identificador no WhatsApp) recebem o nono dígito, para casar com o cadastro.
+ * Deve produzir o mesmo resultado que o backfill da migration V11.
+ */
+public final class TelefoneE164 {
+
+    private static final Pattern SEPARADORES = Pattern.compile("[,;/|\\n]");
+    private static final int TAMANHO_MINIMO = 10;
+    private static final int TAMANHO_MAXIMO = 15;
+
+    private TelefoneE164() {
+    }
+
+    /**
+     * @return o número normalizado, ou null se não for possível identificar um número completo
+     */
+    public static String normalizar(String telefone) {
+        if (telefone == null) {
+            return null;
+        }
+        String texto = telefone.trim();
+        String digitos = TextoBusca.somenteDigitos(texto);
+        boolean internacional = texto.startsWith("+") || digitos.startsWith("00");
+
+        if (internacional) {
+            digitos = digitos.startsWith("00") ? digitos.substring(2) : digitos;
+        } else {
+            digitos = removerZerosAEsquerda(digitos);
+            if (digitos.length() == 10 || digitos.length() == 11) {
+                digitos = "55" + digitos;
+            }
+        }
+
+        // 55 + DDD + celular de 8 dígitos (começa com 6-9): insere o nono dígito
+        if (digitos.length() == 12 && digitos.startsWith("55") && digitos.charAt(4) >= '6') {
+            digitos = digitos.substring(0, 4) + "9" + digitos.substring(4);
+        }
+
+        if (digitos.length() < TAMANHO_MINIMO || digitos.length() > TAMANHO_MAXIMO) {
+            return null;
+        }
+        return digitos;
+    }
+
+    /**
+     * Números normalizados contidos no campo livre de telefones do cliente.
+     */
+    public static Set<String> extrair(String telefones) {
+        Set<String> numeros = new LinkedHashSet<>();
+        for (String parte : partes(telefones)) {
+            String numero = normalizar(parte);
+            if (numero != null) {
+                numeros.add(numero);
+            }
+        }
+        return numeros;
+    }
+
+    /**
+     * Cada número do campo livre de telefones, como digitado (vírgula, ponto e vírgula, barra,
+     * pipe ou quebra de linha separam os números).
+     */
+    public static List<String> partes(String telefones) {
+        return telefones == null ? List.of() : List.of(SEPARADORES.split(telefones));
+    }
+
+    private static String removerZerosAEsquerda(String digitos) {
+        int i = 0;
+        while (i < digitos.length() && digitos.charAt(i) == '0') {
+            i++;
+        }
+        return digitos.substring(i);
+    }
+}
@@ -0,0 +1,72 @@
+package br.com.anacarla.erp.domain;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
+
+/**
+ * Normalização de texto para busca: sem acentos, minúsculas e espaços simples.
+ * Deve produzir o mesmo resultado que o backfill da migration V10
+ * (lower/unaccent/regexp_replace), para que a coluna busca_normalizada seja consistente.
+ */
+public final class TextoBusca {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACOS = Pattern.compile("\\s+");
+    private static final Pattern NAO_DIGITOS = Pattern.compile("[^0-9]");
+    private static final Pattern LETRAS = Pattern.compile("\\p{L}");
+    private static final String SEPARADOR = " | ";
+
+    private TextoBusca() {
+    }
+
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String semAcentos = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return ESPACOS.matcher(semAcentos.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    public static String somenteDigitos(String texto) {
+        return texto == null ? "" : NAO_DIGITOS.matcher(texto).replaceAll("");
+    }
+
+    /**
+     * Conteúdo indexado de um cliente: nome e email normalizados e os dígitos de cada telefone,
+     * separados por espaço para que um termo só de dígitos não case atravessando dois números.
+     */
+    public static String indexavel(String nome, String email, String telefones) {
+        StringJoiner digitos = new StringJoiner(" ");
+        for (String telefone : TelefoneE164.partes(telefones)) {
+            String numero = somenteDigitos(telefone);
+            if (!numero.isEmpty()) {
+                digitos.add(numero);
+            }
+        }
+        return normalizar(nome) + SEPARADOR + normalizar(email) + SEPARADOR + digitos;
+    }
+
+    /**
+     * Termo para LIKE com ESCAPE '\': % e _ digitados pelo usuário valem como texto, não curinga.
+     */
+    public static String escaparLike(String termo) {
+        return termo.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Termo de busca normalizado. Termos sem letras (ex.: "(11) 99999") viram só dígitos
+     * para casar com os telefones independentemente da formatação.
+     */
+    public static String termo(String busca) {
+        String normalizado = normalizar(busca);
+        if (!normalizado.isEmpty() && !LETRAS.matcher(normalizado).find()) {
+            String digitos = somenteDigitos(normalizado);
+            if (!digitos.isEmpty()) {
+                return digitos;
+            }
+        }
+        return normalizado;
+    }
+}
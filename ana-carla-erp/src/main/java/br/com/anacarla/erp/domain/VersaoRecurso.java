@@ -0,0 +1,54 @@
+package br.com.anacarla.erp.domain;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Versão de um recurso (ou coleção) para respostas condicionais: quantidade de registros e
+ * instante da última alteração, obtidos por uma consulta agregada sobre updated_at/created_at
+ * sem carregar os registros.
+ */
+public record VersaoRecurso(long total, Instant ultimaAlteracao) {
+
+    /**
+     * Construtor usado nas consultas JPQL: COUNT(...) e dois MAX de datas (ex.: updatedAt e
+     * createdAt, que cobre registros antigos sem updated_at).
+     */
+    public VersaoRecurso(Long total, Instant data, Instant outraData) {
+        this(total != null ? total : 0L, maisRecente(data, outraData));
+    }
+
+    public boolean existe() {
+        return total > 0;
+    }
+
+    public VersaoRecurso combinar(VersaoRecurso outra) {
+        return new VersaoRecurso(total + outra.total, maisRecente(ultimaAlteracao, outra.ultimaAlteracao));
+    }
+
+    public long ultimaAlteracaoMillis() {
+        return ultimaAlteracao != null ? ultimaAlteracao.toEpochMilli() : -1;
+    }
+
+    /**
+     * ETag fraco: representa a versão dos dados, não os bytes da resposta. As variantes
+     * (parâmetros que mudam a representação) entram no valor.
+     */
+    public String etag(Object... variantes) {
+        long micros = ultimaAlteracao != null
+                ? ultimaAlteracao.getEpochSecond() * 1_000_000L + ultimaAlteracao.getNano() / 1_000
+                : 0L;
+        return "W/\"" + Long.toHexString(total) + "-" + Long.toHexString(micros)
+                + "-" + Integer.toHexString(Arrays.deepToString(variantes).hashCode()) + "\"";
+    }
+
+    private static Instant maisRecente(Instant a, Instant b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -0,0 +1,8 @@
+package br.com.anacarla.erp.domain.enums;
+
+public enum TipoEventoPedido {
+    CRIADO,
+    ATUALIZADO,
+    STATUS_ALTERADO,
+    REMOVIDO
+}
@@ -1,8 +1,11 @@
 package br.com.anacarla.erp.repository;
 
 import br.com.anacarla.erp.domain.CardapioItem;
+import br.com.anacarla.erp.domain.VersaoRecurso;
 import br.com.anacarla.erp.domain.enums.CategoriaCardapio;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -16,5 +19,13 @@ public interface CardapioItemRepository extends JpaRepository<CardapioItem, UUID
     List<CardapioItem> findByCategoriaAndAtivoOrderByOrdemAsc(CategoriaCardapio categoria, Boolean ativo);
 
     List<CardapioItem> findAllByOrderByCategoriaAscOrdemAsc();
+
+    @Query("SELECT new br.com.anacarla.erp.domain.VersaoRecurso(COUNT(i), MAX(i.updatedAt), MAX(i.createdAt)) " +
+           "FROM CardapioItem i")
+    VersaoRecurso versao();
+
+    @Query("SELECT new br.com.anacarla.erp.domain.VersaoRecurso(COUNT(i), MAX(i.updatedAt), MAX(i.createdAt)) " +
+           "FROM CardapioItem i WHERE i.id = :id")
+    VersaoRecurso versao(@Param("id") UUID id);
 }
 
@@ -0,0 +1,96 @@
+package br.com.anacarla.erp.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Atualizações em lote (set-based) das métricas materializadas em clientes.
+ * As faixas de RFM espelham ClienteMetricasService.calcularRFM; mantenha ambas em sincronia.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ClienteMetricasJdbcRepository {
+
+    private static final String ATUALIZAR_RECENCIA = """
+            UPDATE clientes
+            SET recencia_dias = novo.recencia,
+                updated_at = NOW() AT TIME ZONE 'UTC'
+            FROM (
+                SELECT id,
+                       FLOOR(EXTRACT(EPOCH FROM ((NOW() AT TIME ZONE 'UTC') - ultima_compra)) / 86400)::INTEGER AS recencia
+                FROM clientes
+                WHERE ultima_compra IS NOT NULL
+            ) novo
+            WHERE clientes.id = novo.id
+              AND clientes.recencia_dias IS DISTINCT FROM novo.recencia
+            """;
+
+    private static final String ATUALIZAR_RFM = """
+            WITH scores AS (
+                SELECT id,
+                       CASE
+                           WHEN recencia_dias IS NULL THEN 1
+                           WHEN recencia_dias <= 7 THEN 5
+                           WHEN recencia_dias <= 14 THEN 4
+                           WHEN recencia_dias <= 30 THEN 3
+                           WHEN recencia_dias <= 60 THEN 2
+                           ELSE 1
+                       END AS r,
+                       CASE
+                           WHEN total_pedidos IS NULL OR total_pedidos = 0 THEN 1
+                           WHEN total_pedidos >= 20 THEN 5
+                           WHEN total_pedidos >= 10 THEN 4
+                           WHEN total_pedidos >= 5 THEN 3
+                           WHEN total_pedidos >= 2 THEN 2
+                           ELSE 1
+                       END AS f,
+                       CASE
+                           WHEN ticket_medio IS NULL THEN 1
+                           WHEN ticket_medio >= 50 THEN 5
+                           WHEN ticket_medio >= 35 THEN 4
+                           WHEN ticket_medio >= 25 THEN 3
+                           WHEN ticket_medio >= 15 THEN 2
+                           ELSE 1
+                       END AS m
+                FROM clientes
+                WHERE total_pedidos > 0
+            ), novo AS (
+                SELECT id,
+                       jsonb_build_object('R', r, 'F', f, 'M', m, 'cluster',
+                           CASE
+                               WHEN r >= 4 AND f >= 4 THEN 'LEAL'
+                               WHEN r >= 4 AND f <= 2 THEN 'NOVO'
+                               WHEN r <= 2 AND f >= 4 THEN 'EM_RISCO'
+                               WHEN r <= 2 AND f <= 2 THEN 'PERDIDO'
+                               WHEN (r + f + m) / 3.0 >= 3.5 THEN 'PROMISSOR'
+                               ELSE 'REGULAR'
+                           END) AS rfm
+                FROM scores
+            )
+            UPDATE clientes
+            SET rfm = novo.rfm,
+                updated_at = NOW() AT TIME ZONE 'UTC'
+            FROM novo
+            WHERE clientes.id = novo.id
+              AND clientes.rfm IS DISTINCT FROM novo.rfm
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Recalcula recencia_dias de todos os clientes a partir de ultima_compra.
+     * Só grava as linhas cujo valor mudou.
+     */
+    public int atualizarRecencia() {
+        return jdbcTemplate.update(ATUALIZAR_RECENCIA);
+    }
+
+    /**
+     * Recalcula os scores RFM e o cluster de todos os clientes com pedidos entregues.
+     * Deve rodar depois de atualizarRecencia. Só grava as linhas cujo valor mudou.
+     */
+    public int atualizarRfm() {
+        return jdbcTemplate.update(ATUALIZAR_RFM);
+    }
+}
@@ -1,16 +1,27 @@
 package br.com.anacarla.erp.repository;
 
 import br.com.anacarla.erp.domain.Cliente;
+import br.com.anacarla.erp.domain.VersaoRecurso;
+import br.com.anacarla.erp.web.dto.ClienteAutocompleteDTO;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface ClienteRepository extends JpaRepository<Cliente, UUID> {
@@ -19,16 +30,56 @@ public interface ClienteRepository extends JpaRepository<Cliente, UUID> {
 
     Optional<Cliente> findByCpfCnpj(String cpfCnpj);
 
-    @Query("SELECT c FROM Cliente c WHERE " +
-           "LOWER(c.nome) LIKE LOWER(CONCAT('%', :busca, '%')) OR " +
-           "LOWER(c.email) LIKE LOWER(CONCAT('%', :busca, '%')) OR " +
-           "c.telefones LIKE CONCAT('%', :busca, '%')")
-    Page<Cliente> buscar(@Param("busca") String busca, Pageable pageable);
+    /**
+     * Busca pelo termo já normalizado ({@link br.com.anacarla.erp.domain.TextoBusca#termo}) e
+     * escapado ({@link br.com.anacarla.erp.domain.TextoBusca#escaparLike}).
+     * No Postgres usa o índice trigram idx_cliente_busca_trgm; no H2 é um LIKE comum.
+     */
+    @Query("SELECT c FROM Cliente c WHERE c.buscaNormalizada LIKE CONCAT('%', :termo, '%') ESCAPE '\\'")
+    Page<Cliente> buscar(@Param("termo") String termo, Pageable pageable);
+
+    // Cursores para listagem completa: leitura em blocos do driver, sem snapshot de dirty checking
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM Cliente c")
+    Stream<Cliente> streamTodos();
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM Cliente c WHERE c.buscaNormalizada LIKE CONCAT('%', :termo, '%') ESCAPE '\\'")
+    Stream<Cliente> streamBusca(@Param("termo") String termo);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new br.com.anacarla.erp.web.dto.ClienteAutocompleteDTO(c.id, c.nome, c.telefones, c.email, c.ultimaCompra) " +
+           "FROM Cliente c")
+    Stream<ClienteAutocompleteDTO> streamAutocomplete();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Cliente c WHERE c.id = :id")
+    Optional<Cliente> findByIdParaAtualizacao(@Param("id") UUID id);
+
+    @Query("SELECT c.id FROM Cliente c ORDER BY c.id")
+    Slice<UUID> findIds(Pageable pageable);
 
     @Query("SELECT c FROM Cliente c WHERE c.recenciaDias > :limiar")
     List<Cliente> findClientesEmRiscoChurn(@Param("limiar") Integer limiar);
 
+    @Query("SELECT new br.com.anacarla.erp.domain.VersaoRecurso(COUNT(c), MAX(c.updatedAt), MAX(c.createdAt)) " +
+           "FROM Cliente c")
+    VersaoRecurso versao();
+
+    @Query("SELECT new br.com.anacarla.erp.domain.VersaoRecurso(COUNT(c), MAX(c.updatedAt), MAX(c.createdAt)) " +
+           "FROM Cliente c WHERE c.id = :id")
+    VersaoRecurso versao(@Param("id") UUID id);
+
     @Query("SELECT AVG(c.intervaloMedioRecompra) FROM Cliente c WHERE c.intervaloMedioRecompra IS NOT NULL")
     Double calcularIntervaloMedioGlobal();
-}
 
+    // Importação de pedidos: quais dos ids informados existem, em uma única consulta
+    @Query("SELECT c.id FROM Cliente c WHERE c.id IN :ids")
+    Set<UUID> findIdsExistentes(@Param("ids") Collection<UUID> ids);
+}
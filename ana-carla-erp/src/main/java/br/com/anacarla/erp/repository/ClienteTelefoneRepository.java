@@ -0,0 +1,27 @@
+package br.com.anacarla.erp.repository;
+
+import br.com.anacarla.erp.domain.ClienteTelefone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ClienteTelefoneRepository extends JpaRepository<ClienteTelefone, UUID> {
+
+    Optional<ClienteTelefone> findByNumero(String numero);
+
+    List<ClienteTelefone> findByNumeroIn(Collection<String> numeros);
+
+    List<ClienteTelefone> findByClienteId(UUID clienteId);
+
+    @Modifying
+    @Query("DELETE FROM ClienteTelefone t WHERE t.clienteId = :clienteId")
+    void deleteByClienteId(@Param("clienteId") UUID clienteId);
+}
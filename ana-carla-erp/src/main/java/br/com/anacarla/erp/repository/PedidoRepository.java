@@ -1,7 +1,10 @@
 package br.com.anacarla.erp.repository;
 
 import br.com.anacarla.erp.domain.Pedido;
+import br.com.anacarla.erp.domain.QuantidadeProducao;
+import br.com.anacarla.erp.domain.VersaoRecurso;
 import br.com.anacarla.erp.domain.enums.StatusPedido;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -10,6 +13,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -18,7 +22,12 @@ public interface PedidoRepository extends JpaRepository<Pedido, UUID> {
 
     boolean existsByCliente_Id(UUID clienteId); 
 
-    List<Pedido> findByStatusOrderByDataCriacaoDesc(StatusPedido status);
+    // Listagem: cliente na mesma consulta (nome no DTO); itens via carregarItens
+    @Query("SELECT p FROM Pedido p JOIN FETCH p.cliente WHERE p.status = :status ORDER BY p.dataCriacao DESC")
+    List<Pedido> findByStatusComCliente(@Param("status") StatusPedido status);
+
+    @Query("SELECT p FROM Pedido p JOIN FETCH p.cliente ORDER BY p.dataCriacao DESC")
+    List<Pedido> findAllComCliente();
 
     Page<Pedido> findByClienteIdOrderByDataCriacaoDesc(UUID clienteId, Pageable pageable);
 
@@ -31,5 +40,55 @@ public interface PedidoRepository extends JpaRepository<Pedido, UUID> {
                                               @Param("fim") Instant fim);
 
     Long countByClienteId(UUID clienteId);
+
+    // Entregas vizinhas de uma data (para ajuste incremental da soma de intervalos)
+    @Query("SELECT p.dataEntrega FROM Pedido p WHERE p.clienteId = :clienteId AND p.id <> :pedidoId " +
+           "AND p.dataEntrega IS NOT NULL AND p.dataEntrega <= :data ORDER BY p.dataEntrega DESC")
+    List<Instant> findEntregaAnterior(@Param("clienteId") UUID clienteId,
+                                      @Param("pedidoId") UUID pedidoId,
+                                      @Param("data") Instant data,
+                                      Limit limit);
+
+    @Query("SELECT p.dataEntrega FROM Pedido p WHERE p.clienteId = :clienteId AND p.id <> :pedidoId " +
+           "AND p.dataEntrega IS NOT NULL AND p.dataEntrega >= :data ORDER BY p.dataEntrega ASC")
+    List<Instant> findEntregaPosterior(@Param("clienteId") UUID clienteId,
+                                       @Param("pedidoId") UUID pedidoId,
+                                       @Param("data") Instant data,
+                                       Limit limit);
+
+    // Kanban: paginação por chave (data_criacao, id) apoiada em idx_pedido_status_data_id
+    @Query("SELECT p FROM Pedido p JOIN FETCH p.cliente WHERE p.status = :status " +
+           "ORDER BY p.dataCriacao DESC, p.id DESC")
+    List<Pedido> findColunaKanban(@Param("status") StatusPedido status, Limit limit);
+
+    @Query("SELECT p FROM Pedido p JOIN FETCH p.cliente WHERE p.status = :status AND " +
+           "(p.dataCriacao < :dataCriacao OR (p.dataCriacao = :dataCriacao AND p.id < :id)) " +
+           "ORDER BY p.dataCriacao DESC, p.id DESC")
+    List<Pedido> findColunaKanbanApos(@Param("status") StatusPedido status,
+                                      @Param("dataCriacao") Instant dataCriacao,
+                                      @Param("id") UUID id,
+                                      Limit limit);
+
+    // Atualização de status em lote: pedidos e clientes (nome no DTO) em uma única consulta
+    @Query("SELECT p FROM Pedido p JOIN FETCH p.cliente WHERE p.id IN :ids")
+    List<Pedido> findAllByIdComCliente(@Param("ids") Collection<UUID> ids);
+
+    // Inicializa os itens de pedidos já carregados em uma única consulta
+    @Query("SELECT DISTINCT p FROM Pedido p LEFT JOIN FETCH p.itens WHERE p IN :pedidos")
+    List<Pedido> carregarItens(@Param("pedidos") Collection<Pedido> pedidos);
+
+    // Produção da cozinha: quantidades por pedido e item, em uma única agregação
+    @Query("SELECT new br.com.anacarla.erp.domain.QuantidadeProducao(p.id, i.itemId, i.nome, SUM(i.quantidade)) " +
+           "FROM PedidoItem i JOIN i.pedido p WHERE p.status IN :status GROUP BY p.id, i.itemId, i.nome")
+    List<QuantidadeProducao> somarItensPorStatus(@Param("status") Collection<StatusPedido> status);
+
+    @Query("SELECT new br.com.anacarla.erp.domain.VersaoRecurso(COUNT(p), MAX(p.updatedAt), MAX(p.createdAt)) " +
+           "FROM Pedido p")
+    VersaoRecurso versao();
+
+    // Inclui o cliente: o DTO do pedido traz o nome do cliente
+    @Query("SELECT new br.com.anacarla.erp.domain.VersaoRecurso(COUNT(p), MAX(p.updatedAt), MAX(c.updatedAt)) " +
+           "FROM Pedido p JOIN p.cliente c WHERE p.id = :id")
+    VersaoRecurso versao(@Param("id") UUID id);
 }
 
@@ -0,0 +1,44 @@
+package br.com.anacarla.erp.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+
+/**
+ * Tabela scheduler_locks: um registro por job, com lease (bloqueado_ate) calculado
+ * pelo relógio do banco para não depender do relógio de cada réplica.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SchedulerLockJdbcRepository {
+
+    // Insere o lock ou o assume se o lease anterior já expirou; 0 linhas = lock de outro nó
+    private static final String ADQUIRIR = """
+            INSERT INTO scheduler_locks (nome, bloqueado_ate, bloqueado_em, bloqueado_por)
+            VALUES (?, (NOW() AT TIME ZONE 'UTC') + ? * INTERVAL '1 millisecond', NOW() AT TIME ZONE 'UTC', ?)
+            ON CONFLICT (nome) DO UPDATE
+                SET bloqueado_ate = EXCLUDED.bloqueado_ate,
+                    bloqueado_em = EXCLUDED.bloqueado_em,
+                    bloqueado_por = EXCLUDED.bloqueado_por
+                WHERE scheduler_locks.bloqueado_ate <= EXCLUDED.bloqueado_em
+            """;
+
+    // Mantém o lock pelo menos até bloqueado_em + duração mínima (evita reexecução por relógio defasado)
+    private static final String LIBERAR = """
+            UPDATE scheduler_locks
+            SET bloqueado_ate = GREATEST(NOW() AT TIME ZONE 'UTC', bloqueado_em + ? * INTERVAL '1 millisecond')
+            WHERE nome = ? AND bloqueado_por = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public boolean tentarAdquirir(String nome, Duration duracaoMaxima, String no) {
+        return jdbcTemplate.update(ADQUIRIR, nome, duracaoMaxima.toMillis(), no) > 0;
+    }
+
+    public void liberar(String nome, Duration duracaoMinima, String no) {
+        jdbcTemplate.update(LIBERAR, duracaoMinima.toMillis(), nome, no);
+    }
+}
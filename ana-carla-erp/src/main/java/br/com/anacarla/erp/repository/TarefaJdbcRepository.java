@@ -0,0 +1,99 @@
+package br.com.anacarla.erp.repository;
+
+import br.com.anacarla.erp.domain.Cliente;
+import br.com.anacarla.erp.domain.Tarefa;
+import br.com.anacarla.erp.domain.UuidV7Generator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Acesso JDBC para rotinas em lote de tarefas (alerta de churn).
+ */
+@Repository
+@RequiredArgsConstructor
+public class TarefaJdbcRepository {
+
+    private static final String CLIENTES_EM_RISCO_SEM_ALERTA_ABERTO = """
+            SELECT c.id, c.nome, c.recencia_dias, c.ultima_compra, c.intervalo_medio_recompra,
+                   c.total_pedidos, c.ltv
+            FROM clientes c
+            WHERE c.recencia_dias > ?
+              AND c.id > ?
+              AND NOT EXISTS (
+                  SELECT 1 FROM tarefas t
+                  WHERE t.cliente_id = c.id
+                    AND t.origem = 'ALERTA_CHURN'
+                    AND t.status IN ('PENDENTE', 'EM_ANDAMENTO')
+              )
+            ORDER BY c.id
+            LIMIT ?
+            """;
+
+    private static final String INSERIR_TAREFA = """
+            INSERT INTO tarefas (id, cliente_id, titulo, descricao, responsavel, prioridade, due_date,
+                                 status, origem, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final UUID MENOR_ID = new UUID(0L, 0L);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Próximo lote (ordenado por id) de clientes acima do limiar de recência que ainda não
+     * têm tarefa de churn aberta. Passe o último id do lote anterior, ou null no primeiro lote.
+     */
+    public List<Cliente> findClientesEmRiscoSemAlertaAberto(int limiar, UUID aposId, int limite) {
+        return jdbcTemplate.query(CLIENTES_EM_RISCO_SEM_ALERTA_ABERTO,
+                (rs, rowNum) -> {
+                    LocalDateTime ultimaCompra = rs.getObject("ultima_compra", LocalDateTime.class);
+                    return Cliente.builder()
+                            .id(rs.getObject("id", UUID.class))
+                            .nome(rs.getString("nome"))
+                            .recenciaDias(rs.getObject("recencia_dias", Integer.class))
+                            .ultimaCompra(ultimaCompra != null ? ultimaCompra.toInstant(ZoneOffset.UTC) : null)
+                            .intervaloMedioRecompra(rs.getObject("intervalo_medio_recompra", Integer.class))
+                            .totalPedidos(rs.getObject("total_pedidos", Integer.class))
+                            .ltv(rs.getBigDecimal("ltv"))
+                            .build();
+                },
+                limiar, aposId != null ? aposId : MENOR_ID, limite);
+    }
+
+    /**
+     * Insere as tarefas com JDBC batching. Ids e datas de auditoria são preenchidos aqui,
+     * já que a inserção não passa pelo JPA; datas gravadas em UTC, como o Hibernate faz.
+     */
+    public int inserirEmLote(List<Tarefa> tarefas) {
+        LocalDateTime agora = LocalDateTime.now(ZoneOffset.UTC);
+        int[][] resultado = jdbcTemplate.batchUpdate(INSERIR_TAREFA, tarefas, tarefas.size(), (ps, tarefa) -> {
+            ps.setObject(1, tarefa.getId() != null ? tarefa.getId() : UuidV7Generator.gerar());
+            ps.setObject(2, tarefa.getClienteId());
+            ps.setString(3, tarefa.getTitulo());
+            ps.setString(4, tarefa.getDescricao());
+            ps.setString(5, tarefa.getResponsavel());
+            ps.setString(6, tarefa.getPrioridade().name());
+            if (tarefa.getDueDate() != null) {
+                ps.setObject(7, LocalDateTime.ofInstant(tarefa.getDueDate(), ZoneOffset.UTC));
+            } else {
+                ps.setNull(7, Types.TIMESTAMP);
+            }
+            ps.setString(8, tarefa.getStatus().name());
+            ps.setString(9, tarefa.getOrigem().name());
+            ps.setObject(10, agora);
+            ps.setObject(11, agora);
+        });
+        int inseridas = 0;
+        for (int[] lote : resultado) {
+            inseridas += lote.length;
+        }
+        return inseridas;
+    }
+}
@@ -0,0 +1,203 @@
+package br.com.anacarla.erp.repository;
+
+import br.com.anacarla.erp.domain.enums.CanalPedido;
+import br.com.anacarla.erp.domain.enums.StatusPedido;
+import br.com.anacarla.erp.web.dto.VendasPeriodoDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Tabela vendas_diarias: pedidos e valor somados por dia (no fuso da loja), canal e status.
+ * As alterações de pedidos gravam deltas em vendas_diarias_delta na própria transação, e
+ * esses deltas são consolidados aqui periodicamente; os painéis leem só vendas_diarias.
+ */
+@Repository
+@RequiredArgsConstructor
+public class VendasDiariasJdbcRepository {
+
+    private static final String SOMAR = """
+            UPDATE vendas_diarias
+            SET quantidade_pedidos = quantidade_pedidos + ?,
+                valor_total = valor_total + ?
+            WHERE dia = ? AND canal = ? AND status = ?
+            """;
+
+    private static final String INSERIR = """
+            INSERT INTO vendas_diarias (dia, canal, status, quantidade_pedidos, valor_total)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT DO NOTHING
+            """;
+
+    private static final String INSERIR_DELTA = """
+            INSERT INTO vendas_diarias_delta (dia, canal, status, quantidade_pedidos, valor_total)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+    // Retira um lote de deltas (SKIP LOCKED: réplicas consolidando ao mesmo tempo pegam lotes
+    // distintos) já somados por linha, em ordem fixa para as atualizações não se travarem
+    private static final String RETIRAR_DELTAS = """
+            WITH retirados AS (
+                DELETE FROM vendas_diarias_delta
+                WHERE id IN (SELECT id FROM vendas_diarias_delta ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED)
+                RETURNING dia, canal, status, quantidade_pedidos, valor_total
+            )
+            SELECT dia, canal, status,
+                   SUM(quantidade_pedidos) AS pedidos, SUM(valor_total) AS valor, COUNT(*) AS deltas
+            FROM retirados
+            GROUP BY dia, canal, status
+            ORDER BY dia, canal, status
+            """;
+
+    private static final Set<String> GRANULARIDADES = Set.of("day", "month", "year");
+
+    private static final String APAGAR_PERIODO = "DELETE FROM vendas_diarias WHERE dia BETWEEN ? AND ?";
+
+    private static final String APAGAR_DELTAS_PERIODO = "DELETE FROM vendas_diarias_delta WHERE dia BETWEEN ? AND ?";
+
+    // Espera as transações com deltas gravados e barra novos deltas até o commit (auto-exclusivo)
+    private static final String TRAVAR_DELTAS = "LOCK TABLE vendas_diarias_delta IN SHARE ROW EXCLUSIVE MODE";
+
+    // data_criacao é gravada em UTC; o dia é o do fuso da loja
+    private static final String RECONSTRUIR_PERIODO = """
+            INSERT INTO vendas_diarias (dia, canal, status, quantidade_pedidos, valor_total)
+            SELECT (data_criacao AT TIME ZONE 'UTC' AT TIME ZONE ?)::DATE AS dia,
+                   canal, status, COUNT(*), SUM(valor_total)
+            FROM pedidos
+            WHERE data_criacao >= (?::TIMESTAMP AT TIME ZONE ?) AT TIME ZONE 'UTC'
+              AND data_criacao < (?::TIMESTAMP AT TIME ZONE ?) AT TIME ZONE 'UTC'
+            GROUP BY 1, 2, 3
+            """;
+
+    private static final RowMapper<VendasPeriodoDTO> PERIODO = (rs, i) -> {
+        long pedidos = rs.getLong("pedidos");
+        BigDecimal valorTotal = rs.getBigDecimal("valor_total");
+        return VendasPeriodoDTO.builder()
+                .periodo(rs.getDate("periodo").toLocalDate())
+                .pedidos(pedidos)
+                .valorTotal(valorTotal)
+                .ticketMedio(pedidos > 0
+                        ? valorTotal.divide(BigDecimal.valueOf(pedidos), 2, RoundingMode.HALF_UP)
+                        : BigDecimal.ZERO)
+                .build();
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Soma (ou subtrai, com valores negativos) pedidos e valor na linha do dia/canal/status.
+     * Tenta o UPDATE primeiro (caso comum: a linha do dia já existe); se outra transação
+     * inserir a linha entre o UPDATE e o INSERT, o INSERT não faz nada e o UPDATE é repetido.
+     */
+    public void somar(LocalDate dia, CanalPedido canal, StatusPedido status, int pedidos, BigDecimal valor) {
+        Date data = Date.valueOf(dia);
+        while (jdbcTemplate.update(SOMAR, pedidos, valor, data, canal.name(), status.name()) == 0) {
+            if (jdbcTemplate.update(INSERIR, data, canal.name(), status.name(), pedidos, valor) > 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Registra um delta da linha do dia/canal/status, sem tocar em vendas_diarias. Deve rodar
+     * na transação da alteração do pedido: some junto com ela no rollback.
+     */
+    public void inserirDelta(LocalDate dia, CanalPedido canal, StatusPedido status, int pedidos, BigDecimal valor) {
+        jdbcTemplate.update(INSERIR_DELTA, Date.valueOf(dia), canal.name(), status.name(), pedidos, valor);
+    }
+
+    /**
+     * Consolida até {@code limite} deltas em vendas_diarias. Deve rodar numa transação: os
+     * deltas só somem se as somas forem gravadas.
+     *
+     * @return deltas consolidados
+     */
+    public int consolidarDeltas(int limite) {
+        List<DeltaConsolidado> linhas = jdbcTemplate.query(RETIRAR_DELTAS, (rs, i) -> new DeltaConsolidado(
+                rs.getDate("dia").toLocalDate(),
+                CanalPedido.valueOf(rs.getString("canal")),
+                StatusPedido.valueOf(rs.getString("status")),
+                rs.getInt("pedidos"),
+                rs.getBigDecimal("valor"),
+                rs.getInt("deltas")), limite);
+        int deltas = 0;
+        for (DeltaConsolidado linha : linhas) {
+            if (linha.pedidos() != 0 || linha.valor().signum() != 0) {
+                somar(linha.dia(), linha.canal(), linha.status(), linha.pedidos(), linha.valor());
+            }
+            deltas += linha.deltas();
+        }
+        return deltas;
+    }
+
+    /**
+     * Data de criação (UTC) do pedido mais antigo, ou null sem pedidos.
+     */
+    public LocalDateTime primeiroPedido() {
+        return jdbcTemplate.queryForObject("SELECT MIN(data_criacao) FROM pedidos", LocalDateTime.class);
+    }
+
+    /**
+     * Recalcula as linhas do período a partir da tabela pedidos e descarta os deltas do
+     * período ainda não consolidados, que já estão nos pedidos. Deve rodar numa transação: o
+     * lock garante que todo pedido está ou na consulta de reconstrução ou num delta posterior.
+     *
+     * @return linhas gravadas
+     */
+    public int reconstruir(LocalDate de, LocalDate ate, String fuso) {
+        jdbcTemplate.execute(TRAVAR_DELTAS);
+        jdbcTemplate.update(APAGAR_DELTAS_PERIODO, Date.valueOf(de), Date.valueOf(ate));
+        jdbcTemplate.update(APAGAR_PERIODO, Date.valueOf(de), Date.valueOf(ate));
+        return jdbcTemplate.update(RECONSTRUIR_PERIODO,
+                fuso, de.toString(), fuso, ate.plusDays(1).toString(), fuso);
+    }
+
+    /**
+     * Totais por período entre as datas (inclusive).
+     *
+     * @param granularidade "day", "month" ou "year" (date_trunc)
+     */
+    public List<VendasPeriodoDTO> totaisPorPeriodo(String granularidade, LocalDate de, LocalDate ate,
+                                                   CanalPedido canal, Collection<StatusPedido> status) {
+        if (!GRANULARIDADES.contains(granularidade)) {
+            throw new IllegalArgumentException("Granularidade inválida: " + granularidade);
+        }
+        List<Object> parametros = new ArrayList<>();
+        parametros.add(Date.valueOf(de));
+        parametros.add(Date.valueOf(ate));
+        // Unidade como literal (validada acima): o agrupamento fica igual à expressão do SELECT
+        StringBuilder sql = new StringBuilder("""
+                SELECT CAST(date_trunc('%s', CAST(dia AS TIMESTAMP)) AS DATE) AS periodo,
+                       SUM(quantidade_pedidos) AS pedidos,
+                       SUM(valor_total) AS valor_total
+                FROM vendas_diarias
+                WHERE dia BETWEEN ? AND ?
+                """.formatted(granularidade));
+        if (canal != null) {
+            sql.append(" AND canal = ?");
+            parametros.add(canal.name());
+        }
+        sql.append(" AND status IN (")
+                .append(status.stream().map(s -> "?").collect(Collectors.joining(", ")))
+                .append(")");
+        status.forEach(s -> parametros.add(s.name()));
+        sql.append(" GROUP BY 1 ORDER BY 1");
+        return jdbcTemplate.query(sql.toString(), PERIODO, parametros.toArray());
+    }
+
+    private record DeltaConsolidado(LocalDate dia, CanalPedido canal, StatusPedido status,
+                                    int pedidos, BigDecimal valor, int deltas) {
+    }
+}
@@ -1,21 +1,24 @@
 package br.com.anacarla.erp.sched;
 
 import br.com.anacarla.erp.domain.Cliente;
+import br.com.anacarla.erp.domain.Tarefa;
 import br.com.anacarla.erp.domain.enums.OrigemTarefa;
 import br.com.anacarla.erp.domain.enums.PrioridadeTarefa;
 import br.com.anacarla.erp.domain.enums.StatusTarefa;
 import br.com.anacarla.erp.repository.ClienteRepository;
-import br.com.anacarla.erp.service.TarefaService;
-import br.com.anacarla.erp.web.dto.TarefaDTO;
+import br.com.anacarla.erp.repository.TarefaJdbcRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.UUID;
 
 @Component
 @RequiredArgsConstructor
@@ -23,7 +26,9 @@ import java.util.List;
 public class ChurnAlertScheduler {
 
     private final ClienteRepository clienteRepository;
-    private final TarefaService tarefaService;
+    private final TarefaJdbcRepository tarefaJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final SchedulerLock schedulerLock;
 
     @Value("${app.scheduling.churn-alert-enabled:true}")
     private boolean churnAlertEnabled;
@@ -31,9 +36,17 @@ public class ChurnAlertScheduler {
     @Value("${app.scheduling.churn-threshold-days:15}")
     private int churnThresholdDays;
 
+    @Value("${app.scheduling.churn-chunk-size:500}")
+    private int churnChunkSize;
+
     /**
      * Executa diariamente às 8h para identificar clientes em risco de churn
      * e criar tarefas de follow-up.
+     *
+     * Os clientes são percorridos em lotes (keyset por id), cada lote em sua própria
+     * transação com inserção das tarefas via JDBC batch. Clientes que já têm uma tarefa
+     * ALERTA_CHURN aberta são ignorados, então reexecuções não duplicam tarefas.
+     * Com várias réplicas, apenas a que obtiver o lock executa.
      */
     @Scheduled(cron = "0 0 8 * * *") // Todos os dias às 8h
     public void verificarClientesEmRisco() {
@@ -42,6 +55,10 @@ public class ChurnAlertScheduler {
             return;
         }
 
+        schedulerLock.executar("churn-alert", Duration.ofMinutes(30), Duration.ofMinutes(1), this::criarAlertasDeChurn);
+    }
+
+    private void criarAlertasDeChurn() {
         log.info("Iniciando verificação de clientes em risco de churn...");
 
         try {
@@ -53,34 +70,54 @@ public class ChurnAlertScheduler {
 
             log.info("Limiar de recência calculado: {} dias", limiar);
 
-            List<Cliente> clientesEmRisco = clienteRepository.findClientesEmRiscoChurn(limiar);
-            
-            if (clientesEmRisco.isEmpty()) {
-                log.info("Nenhum cliente em risco de churn identificado");
-                return;
-            }
+            long inicio = System.nanoTime();
+            int lotes = 0;
+            int clientesEmRisco = 0;
+            int tarefasCriadas = 0;
+            UUID ultimoId = null;
+
+            while (true) {
+                UUID aposId = ultimoId;
+                List<Cliente> lote = transactionTemplate.execute(status -> {
+                    List<Cliente> clientes = tarefaJdbcRepository
+                            .findClientesEmRiscoSemAlertaAberto(limiar, aposId, churnChunkSize);
+                    if (!clientes.isEmpty()) {
+                        tarefaJdbcRepository.inserirEmLote(
+                                clientes.stream().map(this::criarTarefaFollowUp).toList());
+                    }
+                    return clientes;
+                });
+
+                if (lote == null || lote.isEmpty()) {
+                    break;
+                }
 
-            log.info("Encontrados {} clientes em risco de churn", clientesEmRisco.size());
+                lotes++;
+                clientesEmRisco += lote.size();
+                tarefasCriadas += lote.size();
+                ultimoId = lote.get(lote.size() - 1).getId();
+                log.debug("Lote {} de churn: {} tarefas criadas", lotes, lote.size());
 
-            int tarefasCriadas = 0;
-            for (Cliente cliente : clientesEmRisco) {
-                try {
-                    criarTarefaFollowUp(cliente);
-                    tarefasCriadas++;
-                } catch (Exception e) {
-                    log.error("Erro ao criar tarefa para cliente {}: {}", 
-                              cliente.getId(), e.getMessage());
+                if (lote.size() < churnChunkSize) {
+                    break;
                 }
             }
 
-            log.info("Verificação de churn concluída. {} tarefas de follow-up criadas", tarefasCriadas);
+            if (clientesEmRisco == 0) {
+                log.info("Nenhum cliente em risco de churn sem alerta aberto");
+                return;
+            }
+
+            long duracaoMs = Math.max(1, (System.nanoTime() - inicio) / 1_000_000);
+            log.info("Verificação de churn concluída. {} tarefas de follow-up criadas em {} lote(s), {} ms ({} tarefas/s)",
+                     tarefasCriadas, lotes, duracaoMs, tarefasCriadas * 1000L / duracaoMs);
 
         } catch (Exception e) {
             log.error("Erro ao executar verificação de churn", e);
         }
     }
 
-    private void criarTarefaFollowUp(Cliente cliente) {
+    private Tarefa criarTarefaFollowUp(Cliente cliente) {
         String titulo = String.format("Follow-up: %s - Risco de churn", cliente.getNome());
         
         String descricao = String.format(
@@ -94,7 +131,7 @@ public class ChurnAlertScheduler {
                 cliente.getTotalPedidos()
         );
 
-        TarefaDTO tarefa = TarefaDTO.builder()
+        return Tarefa.builder()
                 .clienteId(cliente.getId())
                 .titulo(titulo)
                 .descricao(descricao)
@@ -103,10 +140,6 @@ public class ChurnAlertScheduler {
                 .origem(OrigemTarefa.ALERTA_CHURN)
                 .dueDate(Instant.now().plus(3, ChronoUnit.DAYS)) // 3 dias para ação
                 .build();
-
-        tarefaService.criar(tarefa);
-        log.info("Tarefa de follow-up criada para cliente {} (recência: {} dias)", 
-                 cliente.getId(), cliente.getRecenciaDias());
     }
 
     private PrioridadeTarefa determinarPrioridade(Cliente cliente) {
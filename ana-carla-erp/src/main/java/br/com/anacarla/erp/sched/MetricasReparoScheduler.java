@@ -0,0 +1,71 @@
+package br.com.anacarla.erp.sched;
+
+import br.com.anacarla.erp.repository.ClienteRepository;
+import br.com.anacarla.erp.service.ClienteMetricasService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MetricasReparoScheduler {
+
+    private static final int TAMANHO_LOTE = 200;
+
+    private final ClienteRepository clienteRepository;
+    private final ClienteMetricasService clienteMetricasService;
+    private final SchedulerLock schedulerLock;
+
+    @Value("${app.scheduling.metricas-reparo-enabled:false}")
+    private boolean metricasReparoEnabled;
+
+    /**
+     * Reconciliação periódica: refaz o cálculo completo das métricas de todos os clientes
+     * para corrigir eventuais desvios dos agregados incrementais. Cada cliente é
+     * recalculado em sua própria transação.
+     */
+    @Scheduled(cron = "${app.scheduling.metricas-reparo-cron:0 0 3 * * SUN}")
+    public void repararMetricas() {
+        if (!metricasReparoEnabled) {
+            log.debug("Reparo de métricas desabilitado");
+            return;
+        }
+
+        schedulerLock.executar("metricas-reparo", Duration.ofHours(2), Duration.ofMinutes(1), this::repararTodos);
+    }
+
+    private void repararTodos() {
+        log.info("Iniciando reparo das métricas de clientes...");
+        long inicio = System.currentTimeMillis();
+        int processados = 0;
+        int falhas = 0;
+
+        Pageable pagina = PageRequest.of(0, TAMANHO_LOTE);
+        Slice<UUID> ids;
+        do {
+            ids = clienteRepository.findIds(pagina);
+            for (UUID clienteId : ids) {
+                try {
+                    clienteMetricasService.recalcularMetricasCliente(clienteId);
+                    processados++;
+                } catch (Exception e) {
+                    falhas++;
+                    log.error("Erro ao reparar métricas do cliente {}: {}", clienteId, e.getMessage());
+                }
+            }
+            pagina = ids.nextPageable();
+        } while (ids.hasNext());
+
+        log.info("Reparo de métricas concluído: {} clientes em {} ms ({} falhas)",
+                 processados, System.currentTimeMillis() - inicio, falhas);
+    }
+}
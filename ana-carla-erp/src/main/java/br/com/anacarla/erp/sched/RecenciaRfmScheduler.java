@@ -0,0 +1,45 @@
+package br.com.anacarla.erp.sched;
+
+import br.com.anacarla.erp.service.ClienteMetricasService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RecenciaRfmScheduler {
+
+    private final ClienteMetricasService clienteMetricasService;
+    private final SchedulerLock schedulerLock;
+
+    @Value("${app.scheduling.recencia-rfm-enabled:true}")
+    private boolean recenciaRfmEnabled;
+
+    /**
+     * Executa de madrugada, antes da verificação de churn, para que o alerta
+     * trabalhe com a recência do dia.
+     */
+    @Scheduled(cron = "${app.scheduling.recencia-rfm-cron:0 30 2 * * *}")
+    public void atualizarRecenciaERfm() {
+        if (!recenciaRfmEnabled) {
+            log.debug("Atualização de recência/RFM desabilitada");
+            return;
+        }
+
+        schedulerLock.executar("recencia-rfm", Duration.ofMinutes(30), Duration.ofMinutes(1), this::atualizarEmLote);
+    }
+
+    private void atualizarEmLote() {
+        log.info("Iniciando atualização em lote de recência e RFM...");
+        try {
+            clienteMetricasService.atualizarRecenciaERfmEmLote();
+        } catch (Exception e) {
+            log.error("Erro ao atualizar recência e RFM em lote", e);
+        }
+    }
+}
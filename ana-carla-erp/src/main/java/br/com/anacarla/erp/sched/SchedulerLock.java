@@ -0,0 +1,93 @@
+package br.com.anacarla.erp.sched;
+
+import br.com.anacarla.erp.repository.SchedulerLockJdbcRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Garante que um job agendado rode em uma única réplica por disparo.
+ * Os jobs aderem chamando {@link #executar}; o lock expira após a duração máxima
+ * mesmo que a réplica que o detém caia no meio da execução.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SchedulerLock {
+
+    private final SchedulerLockJdbcRepository schedulerLockJdbcRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.scheduling.lock.node-id:}")
+    private String noId;
+
+    @PostConstruct
+    void iniciar() {
+        if (noId == null || noId.isBlank()) {
+            try {
+                noId = InetAddress.getLocalHost().getHostName();
+            } catch (Exception e) {
+                noId = UUID.randomUUID().toString();
+            }
+        }
+        log.info("Identificador do nó para locks de agendamento: {}", noId);
+    }
+
+    /**
+     * Executa a tarefa se este nó obtiver o lock do job.
+     *
+     * @param job           nome do lock (um por job)
+     * @param duracaoMaxima lease; deve ser maior que a execução mais longa esperada
+     * @param duracaoMinima tempo mínimo em que o lock fica retido após o início
+     * @return true se a tarefa foi executada neste nó
+     */
+    public boolean executar(String job, Duration duracaoMaxima, Duration duracaoMinima, Runnable tarefa) {
+        boolean adquirido;
+        try {
+            adquirido = schedulerLockJdbcRepository.tentarAdquirir(job, duracaoMaxima, noId);
+        } catch (Exception e) {
+            log.error("Erro ao obter lock do job {}: {}", job, e.getMessage());
+            registrar(job, "erro-lock");
+            return false;
+        }
+
+        if (!adquirido) {
+            log.info("Job {} ignorado: lock em uso por outro nó", job);
+            registrar(job, "ignorado");
+            return false;
+        }
+
+        try {
+            tarefa.run();
+            registrar(job, "executado");
+        } catch (RuntimeException e) {
+            registrar(job, "falha");
+            throw e;
+        } finally {
+            try {
+                schedulerLockJdbcRepository.liberar(job, duracaoMinima, noId);
+            } catch (Exception e) {
+                log.warn("Erro ao liberar lock do job {} (expira pelo lease): {}", job, e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private void registrar(String job, String resultado) {
+        Counter.builder("scheduler.execucoes")
+                .description("Disparos de jobs agendados por nó e resultado")
+                .tag("job", job)
+                .tag("no", noId)
+                .tag("resultado", resultado)
+                .register(meterRegistry)
+                .increment();
+    }
+}
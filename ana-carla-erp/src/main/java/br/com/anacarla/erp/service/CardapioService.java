@@ -1,6 +1,8 @@
 package br.com.anacarla.erp.service;
 
+import br.com.anacarla.erp.datasource.LeituraNoPrimario;
 import br.com.anacarla.erp.domain.CardapioItem;
+import br.com.anacarla.erp.domain.VersaoRecurso;
 import br.com.anacarla.erp.repository.CardapioItemRepository;
 import br.com.anacarla.erp.web.dto.CardapioItemDTO;
 import br.com.anacarla.erp.web.mapper.CardapioMapper;
@@ -25,6 +27,7 @@ public class CardapioService {
     private final CardapioMapper cardapioMapper;
 
     @Transactional(readOnly = true)
+    @LeituraNoPrimario
     @Cacheable(value = "cardapio", key = "#ativo != null ? #ativo : 'all'")
     public List<CardapioItemDTO> listar(Boolean ativo) {
         log.debug("Listando itens do cardápio (ativo: {})", ativo);
@@ -41,6 +44,16 @@ public class CardapioService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    public VersaoRecurso versao() {
+        return cardapioItemRepository.versao();
+    }
+
+    @Transactional(readOnly = true)
+    public VersaoRecurso versao(UUID id) {
+        return cardapioItemRepository.versao(id);
+    }
+
     @CacheEvict(value = "cardapio", allEntries = true)
     public CardapioItemDTO criar(CardapioItemDTO dto) {
         log.info("Criando novo item do cardápio: {}", dto.getNome());
@@ -1,15 +1,21 @@
 package br.com.anacarla.erp.service;
 
+import br.com.anacarla.erp.datasource.LeituraNoPrimario;
 import br.com.anacarla.erp.domain.CardapioItem;
 import br.com.anacarla.erp.domain.enums.CategoriaCardapio;
 import br.com.anacarla.erp.repository.CardapioItemRepository;
+import br.com.anacarla.erp.web.dto.CardapioWhatsAppTextoDTO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.NumberFormat;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -20,8 +26,24 @@ import java.util.stream.Collectors;
 @Slf4j
 public class CardapioWhatsAppFormatter {
 
+    private static final Locale PT_BR = new Locale("pt", "BR");
+
     private final CardapioItemRepository cardapioItemRepository;
-    private static final NumberFormat CURRENCY_FORMAT = NumberFormat.getCurrencyInstance(new Locale("pt", "BR"));
+
+    /**
+     * Texto renderizado e seu ETag, guardados no cache "cardapio": as mesmas escritas do
+     * CardapioService que invalidam a listagem invalidam o texto.
+     */
+    @Transactional(readOnly = true)
+    @LeituraNoPrimario
+    @Cacheable(value = "cardapio", key = "'whatsapp-text'")
+    public CardapioWhatsAppTextoDTO textoWhatsApp() {
+        String texto = formatarParaWhatsApp();
+        return CardapioWhatsAppTextoDTO.builder()
+                .texto(texto)
+                .etag(calcularEtag(texto))
+                .build();
+    }
 
     @Transactional(readOnly = true)
     public String formatarParaWhatsApp() {
@@ -37,6 +59,9 @@ public class CardapioWhatsAppFormatter {
         Map<CategoriaCardapio, List<CardapioItem>> itensPorCategoria = itensAtivos.stream()
                 .collect(Collectors.groupingBy(CardapioItem::getCategoria));
 
+        // NumberFormat não é thread-safe: uma instância por renderização
+        NumberFormat formatoMoeda = NumberFormat.getCurrencyInstance(PT_BR);
+
         StringBuilder sb = new StringBuilder();
         sb.append("🍱 *Cardápio da Semana*\n\n");
 
@@ -52,7 +77,7 @@ public class CardapioWhatsAppFormatter {
             
             for (CardapioItem item : itens) {
                 sb.append("• ").append(item.getNome())
-                  .append(" - ").append(formatarPreco(item.getPreco()))
+                  .append(" - ").append(formatoMoeda.format(item.getPreco()))
                   .append("\n");
                 
                 if (item.getDescricao() != null && !item.getDescricao().isBlank()) {
@@ -78,8 +103,13 @@ public class CardapioWhatsAppFormatter {
         };
     }
 
-    private String formatarPreco(BigDecimal preco) {
-        return CURRENCY_FORMAT.format(preco);
+    private String calcularEtag(String texto) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(texto.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
     }
 }
 
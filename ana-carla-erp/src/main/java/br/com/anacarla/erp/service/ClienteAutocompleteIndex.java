@@ -0,0 +1,272 @@
+package br.com.anacarla.erp.service;
+
+import br.com.anacarla.erp.datasource.LeituraNoPrimario;
+import br.com.anacarla.erp.domain.Cliente;
+import br.com.anacarla.erp.domain.TelefoneE164;
+import br.com.anacarla.erp.domain.TextoBusca;
+import br.com.anacarla.erp.repository.ClienteRepository;
+import br.com.anacarla.erp.web.dto.ClienteAutocompleteDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * Índice em memória para o autocomplete de clientes no balcão.
+ * Cada cliente é indexado pelos prefixos das palavras do nome, do email e dos telefones
+ * (só dígitos, com e sem DDI/DDD). Consultas não tocam o banco.
+ *
+ * Construído na subida da aplicação, atualizado após o commit das alterações feitas
+ * nesta instância e reconstruído periodicamente para absorver alterações de outras réplicas.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ClienteAutocompleteIndex {
+
+    // Mais recente primeiro; sem compra por último; empate pelo nome
+    private static final Comparator<Entrada> RANKING = Comparator
+            .comparing(Entrada::ultimaCompra, Comparator.nullsLast(Comparator.<Instant>reverseOrder()))
+            .thenComparing(Entrada::nomeNormalizado)
+            .thenComparing(Entrada::id);
+
+    private final ClienteRepository clienteRepository;
+
+    private volatile Indice indice = new Indice();
+
+    // Durante a reconstrução, alterações vão para os dois índices
+    private Indice emConstrucao;
+    private final Set<UUID> removidosDuranteConstrucao = new HashSet<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.clientes.autocomplete.reconstrucao-ms:900000}",
+               initialDelayString = "${app.clientes.autocomplete.reconstrucao-ms:900000}")
+    @Transactional(readOnly = true)
+    @LeituraNoPrimario
+    public void reconstruir() {
+        long inicio = System.currentTimeMillis();
+        Indice novo = new Indice();
+        synchronized (this) {
+            emConstrucao = novo;
+            removidosDuranteConstrucao.clear();
+        }
+        boolean concluido = false;
+        try (Stream<ClienteAutocompleteDTO> clientes = clienteRepository.streamAutocomplete()) {
+            clientes.forEach(cliente -> {
+                Entrada entrada = Entrada.de(cliente);
+                synchronized (this) {
+                    // Não sobrescreve alterações aplicadas enquanto a leitura acontecia
+                    if (!removidosDuranteConstrucao.contains(entrada.id()) && !novo.contem(entrada.id())) {
+                        novo.adicionar(entrada);
+                    }
+                }
+            });
+            concluido = true;
+        } catch (Exception e) {
+            log.error("Erro ao reconstruir índice de autocomplete; mantendo o índice atual", e);
+        } finally {
+            synchronized (this) {
+                if (concluido && emConstrucao == novo) {
+                    indice = novo;
+                }
+                emConstrucao = null;
+                removidosDuranteConstrucao.clear();
+            }
+        }
+        if (concluido) {
+            log.info("Índice de autocomplete de clientes reconstruído: {} clientes em {} ms",
+                     novo.tamanho(), System.currentTimeMillis() - inicio);
+        }
+    }
+
+    /**
+     * Top-k clientes cujos tokens começam com cada palavra do termo, pela compra mais recente.
+     */
+    public List<ClienteAutocompleteDTO> buscar(String termo, int limite) {
+        List<String> partes = partes(termo);
+        if (partes.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        // Candidatos pela parte mais longa (mais seletiva); as demais filtram
+        String principal = partes.stream().max(Comparator.comparingInt(String::length)).orElseThrow();
+        Indice atual = indice;
+        PriorityQueue<Entrada> melhores = new PriorityQueue<>(RANKING.reversed());
+        Set<UUID> vistos = new HashSet<>();
+        for (Set<UUID> ids : atual.comPrefixo(principal)) {
+            for (UUID id : ids) {
+                if (!vistos.add(id)) {
+                    continue;
+                }
+                Entrada entrada = atual.entradas.get(id);
+                if (entrada != null && entrada.casa(partes)) {
+                    melhores.offer(entrada);
+                    if (melhores.size() > limite) {
+                        melhores.poll();
+                    }
+                }
+            }
+        }
+
+        List<Entrada> ordenadas = new ArrayList<>(melhores);
+        ordenadas.sort(RANKING);
+        return ordenadas.stream().map(Entrada::cliente).toList();
+    }
+
+    /**
+     * Reindexa o cliente após o commit da transação corrente (ou imediatamente, fora de transação).
+     */
+    public void atualizar(Cliente cliente) {
+        Entrada entrada = Entrada.de(ClienteAutocompleteDTO.builder()
+                .id(cliente.getId())
+                .nome(cliente.getNome())
+                .telefones(cliente.getTelefones())
+                .email(cliente.getEmail())
+                .ultimaCompra(cliente.getUltimaCompra())
+                .build());
+        AposCommit.executar(() -> aplicar(entrada));
+    }
+
+    public void remover(UUID clienteId) {
+        AposCommit.executar(() -> aplicarRemocao(clienteId));
+    }
+
+    public int tamanho() {
+        return indice.tamanho();
+    }
+
+    private synchronized void aplicar(Entrada entrada) {
+        indice.adicionar(entrada);
+        if (emConstrucao != null) {
+            removidosDuranteConstrucao.remove(entrada.id());
+            emConstrucao.adicionar(entrada);
+        }
+    }
+
+    private synchronized void aplicarRemocao(UUID clienteId) {
+        indice.remover(clienteId);
+        if (emConstrucao != null) {
+            removidosDuranteConstrucao.add(clienteId);
+            emConstrucao.remover(clienteId);
+        }
+    }
+
+    // Partes sem letras (telefone digitado com máscara) viram só dígitos
+    private static List<String> partes(String termo) {
+        List<String> partes = new ArrayList<>();
+        for (String parte : TextoBusca.normalizar(termo).split(" ")) {
+            String normalizada = TextoBusca.termo(parte);
+            if (!normalizada.isEmpty()) {
+                partes.add(normalizada);
+            }
+        }
+        return partes;
+    }
+
+    private static final class Indice {
+
+        private final Map<UUID, Entrada> entradas = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListMap<String, Set<UUID>> tokens = new ConcurrentSkipListMap<>();
+
+        boolean contem(UUID id) {
+            return entradas.containsKey(id);
+        }
+
+        int tamanho() {
+            return entradas.size();
+        }
+
+        void adicionar(Entrada entrada) {
+            remover(entrada.id());
+            entradas.put(entrada.id(), entrada);
+            for (String token : entrada.tokens()) {
+                tokens.computeIfAbsent(token, t -> ConcurrentHashMap.newKeySet()).add(entrada.id());
+            }
+        }
+
+        void remover(UUID id) {
+            Entrada anterior = entradas.remove(id);
+            if (anterior == null) {
+                return;
+            }
+            for (String token : anterior.tokens()) {
+                tokens.computeIfPresent(token, (t, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+
+        Iterable<Set<UUID>> comPrefixo(String prefixo) {
+            return tokens.subMap(prefixo, true, prefixo + Character.MAX_VALUE, false).values();
+        }
+    }
+
+    private record Entrada(UUID id, String nomeNormalizado, Instant ultimaCompra,
+                           Set<String> tokens, ClienteAutocompleteDTO cliente) {
+
+        static Entrada de(ClienteAutocompleteDTO cliente) {
+            String nome = TextoBusca.normalizar(cliente.getNome());
+            Set<String> tokens = new LinkedHashSet<>();
+            for (String palavra : nome.split(" ")) {
+                if (!palavra.isEmpty()) {
+                    tokens.add(palavra);
+                }
+            }
+            String email = TextoBusca.normalizar(cliente.getEmail());
+            if (!email.isEmpty()) {
+                tokens.add(email);
+            }
+            for (String telefone : TelefoneE164.partes(cliente.getTelefones())) {
+                adicionarTelefone(tokens, TextoBusca.somenteDigitos(telefone));
+            }
+            return new Entrada(cliente.getId(), nome, cliente.getUltimaCompra(), Set.copyOf(tokens), cliente);
+        }
+
+        // Número completo, sem DDI 55 e sem DDD, para casar com o que o atendente digitar
+        private static void adicionarTelefone(Set<String> tokens, String digitos) {
+            if (digitos.isEmpty()) {
+                return;
+            }
+            tokens.add(digitos);
+            String nacional = digitos.length() >= 12 && digitos.startsWith("55") ? digitos.substring(2) : digitos;
+            tokens.add(nacional);
+            if (nacional.length() >= 10) {
+                tokens.add(nacional.substring(2));
+            }
+        }
+
+        boolean casa(List<String> partes) {
+            for (String parte : partes) {
+                boolean encontrou = false;
+                for (String token : tokens) {
+                    if (token.startsWith(parte)) {
+                        encontrou = true;
+                        break;
+                    }
+                }
+                if (!encontrou) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -2,12 +2,17 @@ package br.com.anacarla.erp.service;
 
 import br.com.anacarla.erp.domain.Cliente;
 import br.com.anacarla.erp.domain.Pedido;
+import br.com.anacarla.erp.repository.ClienteMetricasJdbcRepository;
 import br.com.anacarla.erp.repository.ClienteRepository;
 import br.com.anacarla.erp.repository.PedidoRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -22,6 +27,9 @@ public class ClienteMetricasService {
 
     private final ClienteRepository clienteRepository;
     private final PedidoRepository pedidoRepository;
+    private final ClienteMetricasJdbcRepository clienteMetricasJdbcRepository;
+    private final ClienteAutocompleteIndex clienteAutocompleteIndex;
+    private final CacheManager cacheManager;
 
     @Transactional
     public void atualizarUltimoPedido(UUID clienteId, Instant dataPedido) {
@@ -35,11 +43,122 @@ public class ClienteMetricasService {
             cliente.setUltimaCompra(dataPedido);
             long dias = ChronoUnit.DAYS.between(dataPedido, Instant.now());
             cliente.setRecenciaDias((int) dias);
-            clienteRepository.save(cliente);
+            salvar(cliente);
             log.info("Última data de pedido atualizada para cliente {}: {}", clienteId, dataPedido);
         }
     }
 
+    /**
+     * Inclui uma entrega nos agregados do cliente (contagem, soma, primeira/última entrega e
+     * soma dos intervalos entre entregas consecutivas) e recalcula as métricas derivadas.
+     * Custo O(1) no caso comum (entrega mais recente); entregas fora de ordem consultam apenas
+     * as entregas vizinhas pelo índice (cliente_id, data_entrega).
+     */
+    @Transactional
+    public void registrarEntrega(UUID clienteId, UUID pedidoId, Instant dataEntrega, BigDecimal valor) {
+        Cliente cliente = clienteRepository.findByIdParaAtualizacao(clienteId)
+                .orElseThrow(() -> new IllegalArgumentException("Cliente não encontrado"));
+
+        if (!agregadosConsistentes(cliente)) {
+            recalcularMetricasCliente(clienteId);
+            return;
+        }
+
+        int total = cliente.getTotalPedidos();
+        if (total == 0) {
+            cliente.setPrimeiraEntrega(dataEntrega);
+            cliente.setUltimaEntrega(dataEntrega);
+            cliente.setSomaIntervalosDias(0L);
+        } else if (!dataEntrega.isBefore(cliente.getUltimaEntrega())) {
+            somarIntervalos(cliente, dias(cliente.getUltimaEntrega(), dataEntrega));
+            cliente.setUltimaEntrega(dataEntrega);
+        } else if (!dataEntrega.isAfter(cliente.getPrimeiraEntrega())) {
+            somarIntervalos(cliente, dias(dataEntrega, cliente.getPrimeiraEntrega()));
+            cliente.setPrimeiraEntrega(dataEntrega);
+        } else {
+            Instant anterior = entregaAnterior(clienteId, pedidoId, dataEntrega);
+            Instant posterior = entregaPosterior(clienteId, pedidoId, dataEntrega);
+            somarIntervalos(cliente, dias(anterior, dataEntrega) + dias(dataEntrega, posterior) - dias(anterior, posterior));
+        }
+
+        cliente.setTotalPedidos(total + 1);
+        cliente.setValorTotal(cliente.getValorTotal().add(valor));
+        aplicarMetricasDerivadas(cliente);
+
+        salvar(cliente);
+        log.info("Entrega registrada para cliente {}: {} pedidos, ticket médio R$ {}",
+                 clienteId, cliente.getTotalPedidos(), cliente.getTicketMedio());
+    }
+
+    /**
+     * Remove uma entrega dos agregados do cliente (pedido excluído ou que voltou ao Kanban).
+     */
+    @Transactional
+    public void removerEntrega(UUID clienteId, UUID pedidoId, Instant dataEntrega, BigDecimal valor) {
+        Cliente cliente = clienteRepository.findByIdParaAtualizacao(clienteId)
+                .orElseThrow(() -> new IllegalArgumentException("Cliente não encontrado"));
+
+        if (!agregadosConsistentes(cliente) || cliente.getTotalPedidos() == 0) {
+            recalcularMetricasCliente(clienteId);
+            return;
+        }
+
+        int total = cliente.getTotalPedidos() - 1;
+        if (total == 0) {
+            resetarMetricas(cliente);
+            salvar(cliente);
+            return;
+        }
+
+        if (!dataEntrega.isBefore(cliente.getUltimaEntrega())) {
+            Instant novaUltima = entregaAnterior(clienteId, pedidoId, dataEntrega);
+            somarIntervalos(cliente, -dias(novaUltima, dataEntrega));
+            cliente.setUltimaEntrega(novaUltima);
+        } else if (!dataEntrega.isAfter(cliente.getPrimeiraEntrega())) {
+            Instant novaPrimeira = entregaPosterior(clienteId, pedidoId, dataEntrega);
+            somarIntervalos(cliente, -dias(dataEntrega, novaPrimeira));
+            cliente.setPrimeiraEntrega(novaPrimeira);
+        } else {
+            Instant anterior = entregaAnterior(clienteId, pedidoId, dataEntrega);
+            Instant posterior = entregaPosterior(clienteId, pedidoId, dataEntrega);
+            somarIntervalos(cliente, dias(anterior, posterior) - dias(anterior, dataEntrega) - dias(dataEntrega, posterior));
+        }
+
+        cliente.setTotalPedidos(total);
+        cliente.setValorTotal(cliente.getValorTotal().subtract(valor));
+        aplicarMetricasDerivadas(cliente);
+
+        salvar(cliente);
+        log.info("Entrega removida para cliente {}: {} pedidos restantes", clienteId, total);
+    }
+
+    /**
+     * Ajusta o valor de um pedido já entregue cujos itens foram alterados.
+     */
+    @Transactional
+    public void ajustarValorEntregue(UUID clienteId, BigDecimal diferenca) {
+        if (diferenca.signum() == 0) {
+            return;
+        }
+
+        Cliente cliente = clienteRepository.findByIdParaAtualizacao(clienteId)
+                .orElseThrow(() -> new IllegalArgumentException("Cliente não encontrado"));
+
+        if (!agregadosConsistentes(cliente) || cliente.getTotalPedidos() == 0) {
+            recalcularMetricasCliente(clienteId);
+            return;
+        }
+
+        cliente.setValorTotal(cliente.getValorTotal().add(diferenca));
+        aplicarMetricasDerivadas(cliente);
+        salvar(cliente);
+    }
+
+    /**
+     * Recálculo completo a partir de todos os pedidos entregues. Usado apenas como reparo
+     * (agregados ausentes/inconsistentes ou rotina de reconciliação); o fluxo normal
+     * usa registrarEntrega/removerEntrega.
+     */
     @Transactional
     public void recalcularMetricasCliente(UUID clienteId) {
         log.debug("Recalculando métricas do cliente: {}", clienteId);
@@ -51,7 +170,7 @@ public class ClienteMetricasService {
 
         if (pedidosEntregues.isEmpty()) {
             resetarMetricas(cliente);
-            clienteRepository.save(cliente);
+            salvar(cliente);
             return;
         }
 
@@ -100,8 +219,20 @@ public class ClienteMetricasService {
             }
             int intervaloMedio = (int) (somaIntervalos / (datas.size() - 1));
             cliente.setIntervaloMedioRecompra(intervaloMedio);
+            cliente.setSomaIntervalosDias(somaIntervalos);
+        } else {
+            cliente.setIntervaloMedioRecompra(null);
+            cliente.setSomaIntervalosDias(0L);
         }
 
+        // Agregados para atualização incremental
+        cliente.setUltimaEntrega(ultimaCompra);
+        cliente.setPrimeiraEntrega(pedidosEntregues.stream()
+                .map(Pedido::getDataEntrega)
+                .filter(Objects::nonNull)
+                .min(Instant::compareTo)
+                .orElse(null));
+
         // LTV simples (valor total até agora)
         cliente.setLtv(valorTotal);
 
@@ -109,11 +240,44 @@ public class ClienteMetricasService {
         Map<String, Object> rfm = calcularRFM(cliente);
         cliente.setRfm(rfm);
 
-        clienteRepository.save(cliente);
+        salvar(cliente);
         log.info("Métricas recalculadas para cliente {}: {} pedidos, ticket médio R$ {}", 
                  clienteId, cliente.getTotalPedidos(), cliente.getTicketMedio());
     }
 
+    /**
+     * Atualiza recência e RFM de todos os clientes em poucas instruções SQL. A recência só
+     * muda no dia a dia para quem não compra, e nesses clientes nada dispara o cálculo
+     * incremental; sem esta rotina o alerta de churn trabalharia com valores congelados.
+     *
+     * @return total de linhas alteradas
+     */
+    @Transactional
+    public int atualizarRecenciaERfmEmLote() {
+        long inicio = System.currentTimeMillis();
+
+        int recencias = clienteMetricasJdbcRepository.atualizarRecencia();
+        int rfms = clienteMetricasJdbcRepository.atualizarRfm();
+
+        if (recencias + rfms > 0) {
+            AposCommit.executar(() -> cacheMetricas().clear());
+        }
+
+        log.info("Recência e RFM atualizados em lote: {} recências e {} RFMs alterados em {} ms",
+                 recencias, rfms, System.currentTimeMillis() - inicio);
+        return recencias + rfms;
+    }
+
+    /**
+     * Fora de transação ou em transação somente leitura. Uma transação de escrita pode ler
+     * métricas que ela mesma alterou e ainda não confirmou; guardá-las no cache exporia
+     * dados que um rollback descartaria.
+     */
+    public static boolean leituraCacheavel() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
     private void resetarMetricas(Cliente cliente) {
         cliente.setTotalPedidos(0);
         cliente.setValorTotal(BigDecimal.ZERO);
@@ -123,6 +287,50 @@ public class ClienteMetricasService {
         cliente.setIntervaloMedioRecompra(null);
         cliente.setLtv(BigDecimal.ZERO);
         cliente.setRfm(null);
+        cliente.setPrimeiraEntrega(null);
+        cliente.setUltimaEntrega(null);
+        cliente.setSomaIntervalosDias(0L);
+    }
+
+    private boolean agregadosConsistentes(Cliente cliente) {
+        if (cliente.getTotalPedidos() == null || cliente.getValorTotal() == null
+                || cliente.getSomaIntervalosDias() == null) {
+            return false;
+        }
+        if (cliente.getTotalPedidos() == 0) {
+            return true;
+        }
+        return cliente.getPrimeiraEntrega() != null && cliente.getUltimaEntrega() != null;
+    }
+
+    private void aplicarMetricasDerivadas(Cliente cliente) {
+        int total = cliente.getTotalPedidos();
+        cliente.setTicketMedio(cliente.getValorTotal().divide(BigDecimal.valueOf(total), 2, RoundingMode.HALF_UP));
+        cliente.setUltimaCompra(cliente.getUltimaEntrega());
+        cliente.setRecenciaDias((int) dias(cliente.getUltimaEntrega(), Instant.now()));
+        cliente.setIntervaloMedioRecompra(total > 1 ? (int) (cliente.getSomaIntervalosDias() / (total - 1)) : null);
+        cliente.setLtv(cliente.getValorTotal());
+        cliente.setRfm(calcularRFM(cliente));
+    }
+
+    private void somarIntervalos(Cliente cliente, long dias) {
+        cliente.setSomaIntervalosDias(cliente.getSomaIntervalosDias() + dias);
+    }
+
+    private Instant entregaAnterior(UUID clienteId, UUID pedidoId, Instant data) {
+        return pedidoRepository.findEntregaAnterior(clienteId, pedidoId, data, Limit.of(1)).stream()
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Entrega anterior não encontrada para cliente " + clienteId));
+    }
+
+    private Instant entregaPosterior(UUID clienteId, UUID pedidoId, Instant data) {
+        return pedidoRepository.findEntregaPosterior(clienteId, pedidoId, data, Limit.of(1)).stream()
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Entrega posterior não encontrada para cliente " + clienteId));
+    }
+
+    private static long dias(Instant inicio, Instant fim) {
+        return ChronoUnit.DAYS.between(inicio, fim);
     }
 
     private Map<String, Object> calcularRFM(Cliente cliente) {
@@ -185,5 +393,17 @@ public class ClienteMetricasService {
         
         return "REGULAR";
     }
-}
 
+    // Última compra entra no ranking do autocomplete
+    private void salvar(Cliente cliente) {
+        clienteRepository.save(cliente);
+        clienteAutocompleteIndex.atualizar(cliente);
+        UUID clienteId = cliente.getId();
+        // Invalidar antes do commit deixaria uma leitura concorrente repor o valor antigo no cache
+        AposCommit.executar(() -> cacheMetricas().evict(clienteId));
+    }
+
+    private Cache cacheMetricas() {
+        return Objects.requireNonNull(cacheManager.getCache("metricas"));
+    }
+}
@@ -1,20 +1,39 @@
 package br.com.anacarla.erp.service;
 
+import br.com.anacarla.erp.datasource.LeituraNoPrimario;
 import br.com.anacarla.erp.domain.Cliente;
+import br.com.anacarla.erp.domain.ClienteTelefone;
+import br.com.anacarla.erp.domain.TelefoneE164;
+import br.com.anacarla.erp.domain.TextoBusca;
+import br.com.anacarla.erp.domain.VersaoRecurso;
 import br.com.anacarla.erp.repository.ClienteRepository;
+import br.com.anacarla.erp.repository.ClienteTelefoneRepository;
+import br.com.anacarla.erp.web.dto.ClienteAutocompleteDTO;
 import br.com.anacarla.erp.web.dto.ClienteDTO;
 import br.com.anacarla.erp.web.dto.ClienteMetricasDTO;
 import br.com.anacarla.erp.web.mapper.ClienteMapper;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -22,32 +41,53 @@ import java.util.stream.Collectors;
 @Transactional
 public class ClienteService {
 
+    private static final int AUTOCOMPLETE_LIMITE_PADRAO = 10;
+    private static final int AUTOCOMPLETE_LIMITE_MAXIMO = 50;
+    private static final String INDICE_TELEFONE_UNICO = "uk_cliente_telefone_numero";
+
     private final ClienteRepository clienteRepository;
     private final ClienteMapper clienteMapper;
+    private final ClienteMetricasService clienteMetricasService;
+    private final EntityManager entityManager;
+    private final ClienteAutocompleteIndex clienteAutocompleteIndex;
+    private final ClienteTelefoneRepository clienteTelefoneRepository;
 
+    /**
+     * Percorre todos os clientes (ou os que casam com a busca) com um cursor do banco,
+     * entregando um DTO por vez. Cada entidade é desanexada após o mapeamento, então a
+     * memória usada não cresce com o número de clientes.
+     */
     @Transactional(readOnly = true)
-    public List<ClienteDTO> listarTodos(String busca) {
+    public void percorrerTodos(String busca, Consumer<ClienteDTO> consumidor) {
         log.debug("Listando todos os clientes com termo: {}", busca);
-        List<Cliente> clientes;
-        if (busca == null || busca.isBlank()) {
-            clientes = clienteRepository.findAll();
-        } else {
-            // Buscar sem paginação - usar método do repository se existir
-            clientes = clienteRepository.findAll().stream()
-                    .filter(c -> c.getNome().toLowerCase().contains(busca.toLowerCase()) ||
-                            (c.getEmail() != null && c.getEmail().toLowerCase().contains(busca.toLowerCase())) ||
-                            (c.getTelefones() != null && c.getTelefones().contains(busca)))
-                    .collect(Collectors.toList());
+        String termo = TextoBusca.termo(busca);
+        try (Stream<Cliente> clientes = termo.isEmpty()
+                ? clienteRepository.streamTodos()
+                : clienteRepository.streamBusca(TextoBusca.escaparLike(termo))) {
+            clientes.forEach(cliente -> {
+                consumidor.accept(clienteMapper.toDTO(cliente));
+                entityManager.detach(cliente);
+            });
         }
-        return clientes.stream().map(clienteMapper::toDTO).collect(Collectors.toList());
     }
 
     public Page<ClienteDTO> buscar(String busca, Pageable pageable) {
         log.debug("Buscando clientes com termo: {}", busca);
-        if (busca == null || busca.isBlank()) {
+        String termo = TextoBusca.termo(busca);
+        if (termo.isEmpty()) {
             return clienteRepository.findAll(pageable).map(clienteMapper::toDTO);
         }
-        return clienteRepository.buscar(busca, pageable).map(clienteMapper::toDTO);
+        return clienteRepository.buscar(TextoBusca.escaparLike(termo), pageable).map(clienteMapper::toDTO);
+    }
+
+    @Transactional(readOnly = true)
+    public VersaoRecurso versao() {
+        return clienteRepository.versao();
+    }
+
+    @Transactional(readOnly = true)
+    public VersaoRecurso versao(UUID id) {
+        return clienteRepository.versao(id);
     }
 
     public ClienteDTO criar(ClienteDTO dto) {
@@ -64,6 +104,8 @@ public class ClienteService {
 
         Cliente entity = clienteMapper.toEntity(dto);
         entity = clienteRepository.save(entity);
+        sincronizarTelefones(entity, null);
+        clienteAutocompleteIndex.atualizar(entity);
         return clienteMapper.toDTO(entity);
     }
 
@@ -87,12 +129,23 @@ public class ClienteService {
             }
         }
 
+        String telefonesAnteriores = entity.getTelefones();
         clienteMapper.updateEntity(dto, entity);
         entity = clienteRepository.save(entity);
+        sincronizarTelefones(entity, telefonesAnteriores);
+        clienteAutocompleteIndex.atualizar(entity);
         return clienteMapper.toDTO(entity);
     }
 
+    /**
+     * Métricas do cliente, em cache por id. O ClienteMetricasService invalida a entrada do
+     * cliente após o commit de cada escrita; leituras dentro de uma transação de escrita vão
+     * direto ao banco.
+     */
     @Transactional(readOnly = true)
+    @LeituraNoPrimario
+    @Cacheable(value = "metricas", key = "#id",
+            condition = "T(br.com.anacarla.erp.service.ClienteMetricasService).leituraCacheavel()")
     public ClienteMetricasDTO obterMetricas(UUID id) {
         log.debug("Obtendo métricas do cliente: {}", id);
         Cliente cliente = clienteRepository.findById(id)
@@ -100,12 +153,107 @@ public class ClienteService {
         return clienteMapper.toMetricasDTO(cliente);
     }
 
+    public ClienteMetricasDTO recalcularMetricas(UUID id) {
+        log.info("Recalculando métricas do cliente (reparo): {}", id);
+        clienteMetricasService.recalcularMetricasCliente(id);
+        // Chamada interna: lê do banco, sem passar pelo cache
+        return obterMetricas(id);
+    }
+
+    @CacheEvict(value = "metricas", key = "#id")
     public void deletar(UUID id) {
         log.info("Deletando cliente: {}", id);
         if (!clienteRepository.existsById(id)) {
             throw new IllegalArgumentException("Cliente não encontrado");
         }
+        clienteTelefoneRepository.deleteByClienteId(id);
         clienteRepository.deleteById(id);
+        clienteAutocompleteIndex.remover(id);
+    }
+
+    /**
+     * Cliente dono do telefone, em qualquer formato (com ou sem DDI, máscara ou nono dígito).
+     * Consulta pelo índice único de cliente_telefone.
+     */
+    @Transactional(readOnly = true)
+    public Optional<UUID> encontrarIdPorTelefone(String telefone) {
+        String numero = TelefoneE164.normalizar(telefone);
+        if (numero == null) {
+            return Optional.empty();
+        }
+        return clienteTelefoneRepository.findByNumero(numero).map(ClienteTelefone::getClienteId);
+    }
+
+    @Transactional(readOnly = true)
+    public ClienteDTO buscarPorTelefone(String telefone) {
+        log.debug("Buscando cliente por telefone: {}", telefone);
+        UUID id = encontrarIdPorTelefone(telefone)
+                .orElseThrow(() -> new IllegalArgumentException("Cliente não encontrado"));
+        return buscarPorId(id);
+    }
+
+    /**
+     * Mantém cliente_telefone igual aos números de Cliente.telefones. Um número novo que já
+     * pertence a outro cliente é rejeitado; números que já estavam no cadastro antes da
+     * tabela existir e conflitam (duplicados legados) apenas não são indexados.
+     */
+    private void sincronizarTelefones(Cliente cliente, String telefonesAnteriores) {
+        Set<String> desejados = TelefoneE164.extrair(cliente.getTelefones());
+        Set<String> anteriores = TelefoneE164.extrair(telefonesAnteriores);
+
+        Set<String> atuais = new HashSet<>();
+        for (ClienteTelefone telefone : clienteTelefoneRepository.findByClienteId(cliente.getId())) {
+            if (desejados.contains(telefone.getNumero())) {
+                atuais.add(telefone.getNumero());
+            } else {
+                clienteTelefoneRepository.delete(telefone);
+            }
+        }
+
+        Set<String> novos = new LinkedHashSet<>(desejados);
+        novos.removeAll(atuais);
+        if (novos.isEmpty()) {
+            return;
+        }
+
+        for (ClienteTelefone outro : clienteTelefoneRepository.findByNumeroIn(novos)) {
+            if (!anteriores.contains(outro.getNumero())) {
+                throw new IllegalArgumentException("Telefone já cadastrado para outro cliente: " + outro.getNumero());
+            }
+            log.warn("Telefone {} do cliente {} pertence ao cliente {}; não indexado",
+                     outro.getNumero(), cliente.getId(), outro.getClienteId());
+            novos.remove(outro.getNumero());
+        }
+
+        // Flush das remoções antes das inserções por causa do índice único
+        clienteTelefoneRepository.flush();
+        for (String numero : novos) {
+            try {
+                clienteTelefoneRepository.saveAndFlush(ClienteTelefone.builder()
+                        .clienteId(cliente.getId())
+                        .numero(numero)
+                        .build());
+            } catch (DataIntegrityViolationException e) {
+                // Outra transação gravou o mesmo número depois da consulta acima
+                if (violouIndiceTelefone(e)) {
+                    throw new IllegalArgumentException("Telefone já cadastrado para outro cliente: " + numero);
+                }
+                throw e;
+            }
+        }
+    }
+
+    private static boolean violouIndiceTelefone(DataIntegrityViolationException e) {
+        return e.getCause() instanceof ConstraintViolationException violacao
+                && violacao.getConstraintName() != null
+                && violacao.getConstraintName().toLowerCase(Locale.ROOT).contains(INDICE_TELEFONE_UNICO);
+    }
+
+    // Consulta só o índice em memória: sem transação nem conexão
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<ClienteAutocompleteDTO> autocomplete(String termo, Integer limite) {
+        int tamanho = limite == null ? AUTOCOMPLETE_LIMITE_PADRAO : Math.min(Math.max(limite, 1), AUTOCOMPLETE_LIMITE_MAXIMO);
+        return clienteAutocompleteIndex.buscar(termo, tamanho);
     }
 }
 
@@ -0,0 +1,37 @@
+package br.com.anacarla.erp.service;
+
+import br.com.anacarla.erp.domain.Pedido;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Cursor de paginação por chave (data_criacao, id) usado nas colunas do Kanban.
+ * Serializado como Base64 URL-safe para o cliente tratá-lo como valor opaco.
+ */
+record KanbanCursor(Instant dataCriacao, UUID id) {
+
+    static KanbanCursor de(Pedido pedido) {
+        return new KanbanCursor(pedido.getDataCriacao(), pedido.getId());
+    }
+
+    String codificar() {
+        String valor = dataCriacao.toString() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static KanbanCursor decodificar(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = valor.indexOf('|');
+            return new KanbanCursor(
+                    Instant.parse(valor.substring(0, separador)),
+                    UUID.fromString(valor.substring(separador + 1))
+            );
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package br.com.anacarla.erp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fila de recálculo de métricas por cliente, executada em segundo plano após o commit.
+ * Solicitações para o mesmo cliente dentro da janela de coalescência viram um único
+ * recálculo completo (idempotente), executado por um pool de threads limitado.
+ *
+ * Recálculos do mesmo cliente nunca se sobrepõem: uma solicitação que vence enquanto o
+ * anterior ainda roda é repetida quando ele termina, e não em paralelo em outra thread.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MetricasRecalculoQueue {
+
+    private final ClienteMetricasService clienteMetricasService;
+    private final MeterRegistry meterRegistry;
+
+    // clienteId -> instante da primeira solicitação ainda não processada
+    private final Map<UUID, Instant> pendentes = new ConcurrentHashMap<>();
+
+    // clienteId em recálculo -> se deve repetir ao terminar (solicitação chegou durante a execução)
+    private final Map<UUID, Boolean> emExecucao = new ConcurrentHashMap<>();
+
+    private ThreadPoolTaskScheduler executor;
+    private Timer atraso;
+    private Timer duracao;
+    private Counter falhas;
+
+    @Value("${app.metricas.recalculo.janela-ms:10000}")
+    private long janelaMs;
+
+    @Value("${app.metricas.recalculo.threads:2}")
+    private int threads;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean threadsVirtuais;
+
+    @PostConstruct
+    void iniciar() {
+        executor = new ThreadPoolTaskScheduler();
+        executor.setPoolSize(threads);
+        executor.setThreadNamePrefix("metricas-recalculo-");
+        if (threadsVirtuais) {
+            // Mesmo limite de concorrência (não disputa o pool de conexões), sem bloquear threads de plataforma
+            executor.setThreadFactory(Thread.ofVirtual().name("metricas-recalculo-", 1).factory());
+        }
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+
+        Gauge.builder("metricas.recalculo.fila", pendentes, Map::size)
+                .description("Clientes aguardando recálculo de métricas")
+                .register(meterRegistry);
+        Gauge.builder("metricas.recalculo.atraso.maximo", pendentes, MetricasRecalculoQueue::atrasoMaximoSegundos)
+                .description("Idade da solicitação pendente mais antiga")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        atraso = Timer.builder("metricas.recalculo.atraso")
+                .description("Tempo entre a solicitação e o início do recálculo")
+                .register(meterRegistry);
+        duracao = Timer.builder("metricas.recalculo.duracao")
+                .description("Duração do recálculo de métricas de um cliente")
+                .register(meterRegistry);
+        falhas = Counter.builder("metricas.recalculo.falhas")
+                .description("Recálculos de métricas que falharam")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void encerrar() {
+        executor.shutdown();
+    }
+
+    /**
+     * Agenda o recálculo das métricas do cliente. Dentro de uma transação, o agendamento
+     * só ocorre após o commit (e é descartado em caso de rollback).
+     */
+    public void agendar(UUID clienteId) {
+        AposCommit.executar(() -> enfileirar(clienteId));
+    }
+
+    public void agendar(Collection<UUID> clienteIds) {
+        clienteIds.forEach(this::agendar);
+    }
+
+    public int getPendentes() {
+        return pendentes.size();
+    }
+
+    private void enfileirar(UUID clienteId) {
+        Instant agora = Instant.now();
+        if (pendentes.putIfAbsent(clienteId, agora) == null) {
+            executor.schedule(() -> processar(clienteId), agora.plusMillis(janelaMs));
+        } else {
+            log.debug("Recálculo de métricas do cliente {} já pendente, coalescido", clienteId);
+        }
+    }
+
+    private void processar(UUID clienteId) {
+        while (emExecucao.putIfAbsent(clienteId, false) != null) {
+            // Recálculo anterior ainda em andamento: quem termina repete; vazio se terminou agora
+            if (emExecucao.computeIfPresent(clienteId, (id, repetir) -> true) != null) {
+                log.debug("Recálculo de métricas do cliente {} em andamento, repetindo ao terminar", clienteId);
+                return;
+            }
+        }
+
+        // Remove antes de processar: novas solicitações durante o recálculo agendam outra execução
+        Instant solicitadoEm = pendentes.remove(clienteId);
+        if (solicitadoEm != null) {
+            atraso.record(Duration.between(solicitadoEm, Instant.now()));
+        }
+
+        Timer.Sample amostra = Timer.start(meterRegistry);
+        try {
+            clienteMetricasService.recalcularMetricasCliente(clienteId);
+        } catch (IllegalArgumentException e) {
+            log.debug("Cliente {} não encontrado para recálculo de métricas", clienteId);
+        } catch (Exception e) {
+            falhas.increment();
+            log.error("Erro ao recalcular métricas do cliente {}", clienteId, e);
+        } finally {
+            amostra.stop(duracao);
+            if (emExecucao.remove(clienteId)) {
+                executor.execute(() -> processar(clienteId));
+            }
+        }
+    }
+
+    private static double atrasoMaximoSegundos(Map<UUID, Instant> pendentes) {
+        Instant agora = Instant.now();
+        return pendentes.values().stream()
+                .mapToLong(solicitadoEm -> Duration.between(solicitadoEm, agora).toMillis())
+                .max()
+                .orElse(0) / 1000.0;
+    }
+}
@@ -0,0 +1,340 @@
+package br.com.anacarla.erp.service;
+
+import br.com.anacarla.erp.cache.CacheInvalidacaoBus;
+import br.com.anacarla.erp.web.dto.PedidoEventoDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Distribui eventos de pedidos (criação, alteração, status, remoção) via Server-Sent Events
+ * para as telas do Kanban. Mantém um buffer circular dos últimos eventos para que clientes
+ * reconectando com Last-Event-ID recebam apenas o que perderam, sem recarregar a lista inteira.
+ *
+ * O lock cobre só a numeração, o buffer e o enfileiramento: cada assinante tem sua fila, que
+ * é esvaziada no socket por uma thread de envio. Um cliente lento ou meio desconectado atrasa
+ * apenas a si mesmo, nunca a transação que publicou o evento nem os demais assinantes; se a
+ * fila dele passar de fila-maxima, ele é desconectado e retoma pelo Last-Event-ID.
+ *
+ * Com várias réplicas, cada evento vai pelo canal LISTEN/NOTIFY do {@link CacheInvalidacaoBus}
+ * e toda réplica, inclusive a de origem, o entrega aos seus assinantes na ordem dos commits.
+ * Os ids SSE são "instância-sequencial" e só valem na réplica que os gerou: um Last-Event-ID de
+ * outra instância (reconexão que o balanceador mandou para outra réplica) recebe "resync".
+ * Sem o barramento (H2), a entrega é local, após o commit.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PedidoEventosService {
+
+    static final String EVENTO_PEDIDO = "pedido";
+    static final String EVENTO_RESYNC = "resync";
+    // Limite do payload do NOTIFY é 8000 bytes
+    private static final int PAYLOAD_MAXIMO = 7900;
+
+    private final CacheInvalidacaoBus invalidacaoBus;
+    private final ObjectMapper objectMapper;
+
+    // Identifica esta execução da réplica nos ids dos eventos
+    private final String instancia = UUID.randomUUID().toString().substring(0, 8);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Assinante> assinantes = new CopyOnWriteArrayList<>();
+    private final Deque<PedidoEventoDTO> buffer = new ArrayDeque<>();
+    private long sequencia = 0;
+
+    private ExecutorService envios;
+
+    @Value("${app.pedidos.eventos.buffer-size:500}")
+    private int bufferSize;
+
+    @Value("${app.pedidos.eventos.fila-maxima:1000}")
+    private int filaMaxima;
+
+    @Value("${app.pedidos.eventos.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.pedidos.eventos.canal:pedido_eventos}")
+    private String canal;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean threadsVirtuais;
+
+    @PostConstruct
+    void iniciar() {
+        // No máximo uma thread por assinante com envio pendente; presa só enquanto o socket dele bloquear
+        envios = threadsVirtuais
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("pedido-eventos-", 1).factory())
+                : Executors.newCachedThreadPool(Thread.ofPlatform().name("pedido-eventos-", 1).daemon().factory());
+        invalidacaoBus.assinar(canal, this::receber, this::solicitarResync);
+    }
+
+    @PreDestroy
+    void encerrar() {
+        envios.shutdownNow();
+    }
+
+    /**
+     * Registra um novo assinante. Se lastEventId for informado, reenvia os eventos posteriores
+     * ainda presentes no buffer; se o id não puder ser atendido (muito antigo ou de outra
+     * instância), envia um evento "resync" para o cliente recarregar o quadro.
+     */
+    public SseEmitter assinar(String lastEventId) {
+        return registrar(new SseEmitter(timeoutMs), lastEventId);
+    }
+
+    SseEmitter registrar(SseEmitter emitter, String lastEventId) {
+        Assinante assinante = new Assinante(emitter);
+        emitter.onCompletion(() -> remover(assinante));
+        emitter.onTimeout(() -> remover(assinante));
+        emitter.onError(e -> remover(assinante));
+
+        lock.lock();
+        try {
+            // Reenvio e inclusão sob o mesmo lock: nenhum evento perdido ou duplicado entre os dois
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                reenviar(assinante, lastEventId);
+            }
+            assinantes.add(assinante);
+        } finally {
+            lock.unlock();
+        }
+        log.debug("Novo assinante de eventos de pedidos ({} conectados)", assinantes.size());
+        return emitter;
+    }
+
+    /**
+     * Chamado dentro da transação que alterou o pedido: o evento só chega aos assinantes (de
+     * todas as réplicas) depois do commit e é descartado no rollback.
+     */
+    @EventListener
+    public void publicar(PedidoEventoDTO evento) {
+        if (invalidacaoBus.isAtivo()) {
+            invalidacaoBus.notificar(canal, mensagem(evento));
+        } else {
+            AposCommit.executar(() -> distribuir(evento));
+        }
+    }
+
+    private void receber(String mensagem) {
+        try {
+            distribuir(objectMapper.readValue(mensagem, PedidoEventoDTO.class));
+        } catch (JsonProcessingException e) {
+            log.warn("Evento de pedido inválido no canal {}: {}", canal, e.getMessage());
+        }
+    }
+
+    private void distribuir(PedidoEventoDTO evento) {
+        lock.lock();
+        try {
+            PedidoEventoDTO numerado = evento.toBuilder().id(++sequencia).build();
+
+            buffer.addLast(numerado);
+            while (buffer.size() > bufferSize) {
+                buffer.removeFirst();
+            }
+
+            for (Assinante assinante : assinantes) {
+                assinante.enfileirar(evento(numerado));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A escuta do canal caiu e eventos podem ter sido perdidos: todos recarregam o quadro, e o
+     * sequencial pula um número para que ids anteriores à queda também peçam resync.
+     */
+    private void solicitarResync() {
+        lock.lock();
+        try {
+            buffer.clear();
+            sequencia++;
+            for (Assinante assinante : assinantes) {
+                assinante.enfileirar(resync());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.pedidos.eventos.heartbeat-ms:25000}")
+    public void heartbeat() {
+        // Também detecta conexões encerradas: o envio falha e o assinante é descartado
+        for (Assinante assinante : assinantes) {
+            assinante.enfileirar(SseEmitter.event().comment("ping"));
+        }
+    }
+
+    public int getAssinantes() {
+        return assinantes.size();
+    }
+
+    private void reenviar(Assinante assinante, String lastEventId) {
+        long ultimoId = sequencial(lastEventId.trim());
+
+        long primeiroDisponivel = buffer.isEmpty() ? sequencia + 1 : buffer.peekFirst().getId();
+        if (ultimoId < primeiroDisponivel - 1 || ultimoId > sequencia) {
+            log.debug("Last-Event-ID {} de outra instância ou fora do buffer [{}, {}], solicitando resync",
+                      lastEventId, primeiroDisponivel, sequencia);
+            assinante.enfileirar(resync());
+            return;
+        }
+
+        for (PedidoEventoDTO evento : buffer) {
+            if (evento.getId() > ultimoId) {
+                assinante.enfileirar(evento(evento));
+            }
+        }
+    }
+
+    // Sequencial de um id desta instância; -1 para ids de outra instância ou inválidos
+    private long sequencial(String id) {
+        if (!id.startsWith(instancia + "-")) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(id.substring(instancia.length() + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private String id(long sequencial) {
+        return instancia + "-" + sequencial;
+    }
+
+    private SseEventBuilder evento(PedidoEventoDTO evento) {
+        return SseEmitter.event()
+                .id(id(evento.getId()))
+                .name(EVENTO_PEDIDO)
+                .data(evento, MediaType.APPLICATION_JSON);
+    }
+
+    private SseEventBuilder resync() {
+        return SseEmitter.event().name(EVENTO_RESYNC).id(id(sequencia)).data("");
+    }
+
+    // Pedido grande demais para o NOTIFY vai sem o estado; a tela o busca por pedidoId
+    private String mensagem(PedidoEventoDTO evento) {
+        try {
+            String mensagem = objectMapper.writeValueAsString(evento);
+            if (mensagem.getBytes(StandardCharsets.UTF_8).length > PAYLOAD_MAXIMO) {
+                mensagem = objectMapper.writeValueAsString(evento.toBuilder().pedido(null).build());
+            }
+            return mensagem;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Erro ao serializar evento de pedido", e);
+        }
+    }
+
+    private void remover(Assinante assinante) {
+        assinante.ativo = false;
+        assinantes.remove(assinante);
+    }
+
+    /**
+     * Fila de envio de um assinante, esvaziada por no máximo uma thread de envio por vez
+     * (preserva a ordem dos eventos).
+     */
+    private final class Assinante {
+
+        private final SseEmitter emitter;
+        private final Queue<SseEventBuilder> fila = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendentes = new AtomicInteger();
+        private final AtomicBoolean enviando = new AtomicBoolean();
+        private volatile boolean ativo = true;
+
+        private Assinante(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void enfileirar(SseEventBuilder evento) {
+            if (!ativo) {
+                return;
+            }
+            if (pendentes.incrementAndGet() > filaMaxima) {
+                log.warn("Assinante de eventos de pedidos com {} eventos pendentes; desconectando", filaMaxima);
+                descartar();
+                return;
+            }
+            fila.add(evento);
+            agendarEnvio();
+        }
+
+        private void agendarEnvio() {
+            if (enviando.compareAndSet(false, true)) {
+                try {
+                    envios.execute(this::enviarPendentes);
+                } catch (RejectedExecutionException e) {
+                    // Aplicação encerrando
+                    enviando.set(false);
+                }
+            }
+        }
+
+        private void enviarPendentes() {
+            try {
+                SseEventBuilder evento;
+                while (ativo && (evento = fila.poll()) != null) {
+                    pendentes.decrementAndGet();
+                    emitter.send(evento);
+                }
+            } catch (IOException | IllegalStateException e) {
+                descartar();
+            } finally {
+                enviando.set(false);
+            }
+            // Evento enfileirado entre o último poll e a liberação acima
+            if (ativo && !fila.isEmpty()) {
+                agendarEnvio();
+            }
+        }
+
+        // Finaliza na thread de envio: complete() espera o envio em andamento para esse emitter
+        private void descartar() {
+            if (!ativo) {
+                return;
+            }
+            remover(this);
+            fila.clear();
+            try {
+                envios.execute(() -> {
+                    try {
+                        emitter.complete();
+                    } catch (IllegalStateException ignored) {
+                        // Emitter já finalizado
+                    }
+                });
+            } catch (RejectedExecutionException ignored) {
+                // Aplicação encerrando: o container fecha a conexão
+            }
+        }
+    }
+}
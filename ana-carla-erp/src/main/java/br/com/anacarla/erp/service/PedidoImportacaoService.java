@@ -0,0 +1,253 @@
+package br.com.anacarla.erp.service;
+
+import br.com.anacarla.erp.domain.Pedido;
+import br.com.anacarla.erp.domain.enums.StatusPedido;
+import br.com.anacarla.erp.repository.ClienteRepository;
+import br.com.anacarla.erp.repository.PedidoRepository;
+import br.com.anacarla.erp.web.dto.ImportacaoFalhaDTO;
+import br.com.anacarla.erp.web.dto.ImportacaoPedidosDTO;
+import br.com.anacarla.erp.web.dto.PedidoDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Importação de pedidos históricos (planilhas, sistema antigo) em NDJSON: um PedidoDTO por
+ * linha, com dataCriacao e dataEntrega preservadas.
+ *
+ * O arquivo é lido linha a linha e gravado em lotes, cada lote em sua própria transação com
+ * inserção em lote JDBC (hibernate.jdbc.batch_size + order_inserts) e persistence context
+ * limpo ao final. Nada é feito por pedido fora do lote: o rollup de vendas recebe os totais
+ * somados do lote, e as métricas de cada cliente afetado são recalculadas uma única vez ao
+ * fim da importação. Linhas inválidas são rejeitadas com o número da linha, sem abortar a
+ * importação; um erro de banco rejeita apenas o lote em que ocorreu.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PedidoImportacaoService {
+
+    private static final int MAXIMO_FALHAS_REPORTADAS = 100;
+
+    private final PedidoService pedidoService;
+    private final PedidoRepository pedidoRepository;
+    private final ClienteRepository clienteRepository;
+    private final ClienteMetricasService clienteMetricasService;
+    private final MetricasRecalculoQueue metricasRecalculoQueue;
+    private final VendasService vendasService;
+    private final ProducaoCozinha producaoCozinha;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+
+    @Value("${app.pedidos.importacao.lote:500}")
+    private int tamanhoLote;
+
+    @Value("${app.metricas.recalculo.assincrono:false}")
+    private boolean recalculoAssincrono;
+
+    public ImportacaoPedidosDTO importar(InputStream entrada) throws IOException {
+        long inicio = System.nanoTime();
+        Importacao importacao = new Importacao();
+        ObjectReader leitor = objectMapper.readerFor(PedidoDTO.class);
+        List<LinhaPedido> lote = new ArrayList<>(tamanhoLote);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+            long numero = 0;
+            String linha;
+            while ((linha = reader.readLine()) != null) {
+                numero++;
+                if (linha.isBlank()) {
+                    continue;
+                }
+                importacao.linhas++;
+                LinhaPedido pedido = ler(leitor, numero, linha, importacao);
+                if (pedido != null) {
+                    lote.add(pedido);
+                }
+                if (lote.size() >= tamanhoLote) {
+                    gravar(lote, importacao);
+                    lote.clear();
+                }
+            }
+        }
+        if (!lote.isEmpty()) {
+            gravar(lote, importacao);
+        }
+
+        atualizarMetricas(importacao.ultimoPedidoPorCliente);
+
+        long duracaoMs = Math.max(1, (System.nanoTime() - inicio) / 1_000_000);
+        long linhasPorSegundo = importacao.linhas * 1000 / duracaoMs;
+        log.info("Importação de pedidos concluída: {} linhas, {} importadas, {} rejeitadas, {} clientes, {} ms ({} linhas/s)",
+                 importacao.linhas, importacao.importados, importacao.rejeitados,
+                 importacao.ultimoPedidoPorCliente.size(), duracaoMs, linhasPorSegundo);
+        return ImportacaoPedidosDTO.builder()
+                .linhas(importacao.linhas)
+                .importados(importacao.importados)
+                .rejeitados(importacao.rejeitados)
+                .clientesAfetados(importacao.ultimoPedidoPorCliente.size())
+                .duracaoMs(duracaoMs)
+                .linhasPorSegundo(linhasPorSegundo)
+                .falhas(importacao.falhas.stream()
+                        .sorted(Comparator.comparing(ImportacaoFalhaDTO::getLinha))
+                        .toList())
+                .build();
+    }
+
+    private LinhaPedido ler(ObjectReader leitor, long numero, String linha, Importacao importacao) {
+        PedidoDTO dto;
+        try {
+            dto = leitor.readValue(linha);
+        } catch (JsonProcessingException e) {
+            importacao.rejeitar(numero, "JSON inválido: " + e.getOriginalMessage());
+            return null;
+        }
+        Set<ConstraintViolation<PedidoDTO>> violacoes = validator.validate(dto);
+        if (!violacoes.isEmpty()) {
+            importacao.rejeitar(numero, violacoes.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+            return null;
+        }
+        return new LinhaPedido(numero, dto);
+    }
+
+    private void gravar(List<LinhaPedido> lote, Importacao importacao) {
+        verificarClientes(lote, importacao);
+
+        List<LinhaPedido> validas = new ArrayList<>(lote.size());
+        for (LinhaPedido linha : lote) {
+            if (importacao.clientesInexistentes.contains(linha.dto().getClienteId())) {
+                importacao.rejeitar(linha.numero(), "Cliente não encontrado");
+            } else {
+                validas.add(linha);
+            }
+        }
+        if (validas.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<Pedido> pedidos = transactionTemplate.execute(status -> {
+                List<Pedido> novos = validas.stream().map(linha -> montar(linha.dto())).toList();
+                pedidoRepository.saveAll(novos);
+                entityManager.flush();
+                vendasService.registrarCriacoes(novos);
+                novos.stream()
+                        .filter(p -> ProducaoCozinha.EM_PRODUCAO.contains(p.getStatus()))
+                        .forEach(producaoCozinha::atualizar);
+                entityManager.clear();
+                return novos;
+            });
+            importacao.importados += pedidos.size();
+            for (Pedido pedido : pedidos) {
+                importacao.ultimoPedidoPorCliente.merge(pedido.getClienteId(), pedido.getDataCriacao(),
+                        (atual, novo) -> novo.isAfter(atual) ? novo : atual);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Lote de importação com {} pedidos rejeitado (linhas {} a {}): {}", validas.size(),
+                     validas.get(0).numero(), validas.get(validas.size() - 1).numero(), e.getMessage());
+            String erro = "Lote rejeitado pelo banco: " + e.getMessage();
+            validas.forEach(linha -> importacao.rejeitar(linha.numero(), erro));
+        }
+    }
+
+    // Uma consulta por lote, apenas para clientes ainda não vistos
+    private void verificarClientes(List<LinhaPedido> lote, Importacao importacao) {
+        Set<UUID> novos = new HashSet<>();
+        for (LinhaPedido linha : lote) {
+            UUID clienteId = linha.dto().getClienteId();
+            if (!importacao.clientesExistentes.contains(clienteId)
+                    && !importacao.clientesInexistentes.contains(clienteId)) {
+                novos.add(clienteId);
+            }
+        }
+        if (novos.isEmpty()) {
+            return;
+        }
+        Set<UUID> existentes = clienteRepository.findIdsExistentes(novos);
+        importacao.clientesExistentes.addAll(existentes);
+        novos.removeAll(existentes);
+        importacao.clientesInexistentes.addAll(novos);
+    }
+
+    private Pedido montar(PedidoDTO dto) {
+        Pedido pedido = pedidoService.novoPedido(dto);
+        Instant dataCriacao = dto.getDataCriacao() != null ? dto.getDataCriacao() : Instant.now();
+        pedido.setDataCriacao(dataCriacao);
+        // Entregue sem data de entrega: considera entregue na criação (planilhas antigas)
+        if (pedido.getStatus() == StatusPedido.ENTREGUE) {
+            pedido.setDataEntrega(dto.getDataEntrega() != null ? dto.getDataEntrega() : dataCriacao);
+        } else if (pedido.getStatus() == StatusPedido.CANCELADO) {
+            pedido.setDataEntrega(dto.getDataEntrega());
+        }
+        return pedido;
+    }
+
+    /**
+     * Uma atualização por cliente afetado: recálculo completo das métricas (ou agendamento,
+     * no modo assíncrono) e a data do último pedido.
+     */
+    private void atualizarMetricas(Map<UUID, Instant> ultimoPedidoPorCliente) {
+        ultimoPedidoPorCliente.forEach((clienteId, ultimoPedido) -> {
+            try {
+                if (recalculoAssincrono) {
+                    metricasRecalculoQueue.agendar(clienteId);
+                } else {
+                    clienteMetricasService.recalcularMetricasCliente(clienteId);
+                }
+                clienteMetricasService.atualizarUltimoPedido(clienteId, ultimoPedido);
+            } catch (Exception e) {
+                log.error("Erro ao atualizar métricas do cliente {} após importação", clienteId, e);
+            }
+        });
+    }
+
+    private record LinhaPedido(long numero, PedidoDTO dto) {
+    }
+
+    private static class Importacao {
+
+        private long linhas;
+        private long importados;
+        private long rejeitados;
+        private final List<ImportacaoFalhaDTO> falhas = new ArrayList<>();
+        private final Set<UUID> clientesExistentes = new HashSet<>();
+        private final Set<UUID> clientesInexistentes = new HashSet<>();
+        private final Map<UUID, Instant> ultimoPedidoPorCliente = new LinkedHashMap<>();
+
+        private void rejeitar(long linha, String erro) {
+            rejeitados++;
+            if (falhas.size() < MAXIMO_FALHAS_REPORTADAS) {
+                falhas.add(ImportacaoFalhaDTO.builder().linha(linha).erro(erro).build());
+            }
+        }
+    }
+}
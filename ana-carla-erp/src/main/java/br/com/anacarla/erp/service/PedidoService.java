@@ -2,21 +2,39 @@ package br.com.anacarla.erp.service;
 
 import br.com.anacarla.erp.domain.Pedido;
 import br.com.anacarla.erp.domain.PedidoItem;
+import br.com.anacarla.erp.domain.VersaoRecurso;
 import br.com.anacarla.erp.domain.enums.StatusPedido;
+import br.com.anacarla.erp.domain.enums.TipoEventoPedido;
+import br.com.anacarla.erp.repository.ClienteRepository;
 import br.com.anacarla.erp.repository.PedidoRepository;
+import br.com.anacarla.erp.web.dto.KanbanColunaDTO;
 import br.com.anacarla.erp.web.dto.PedidoDTO;
+import br.com.anacarla.erp.web.dto.PedidoEventoDTO;
 import br.com.anacarla.erp.web.dto.PedidoItemDTO;
+import br.com.anacarla.erp.web.dto.ProducaoCozinhaDTO;
+import br.com.anacarla.erp.web.dto.StatusLoteResultadoDTO;
 import br.com.anacarla.erp.web.mapper.PedidoMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -26,9 +44,22 @@ import java.util.stream.Collectors;
 @Transactional
 public class PedidoService {
 
+    private static final List<StatusPedido> COLUNAS_KANBAN = List.of(
+            StatusPedido.RECEBIDO, StatusPedido.PREPARANDO, StatusPedido.PRONTO, StatusPedido.ENTREGUE);
+    private static final int LIMITE_PADRAO_KANBAN = 20;
+    private static final int LIMITE_MAXIMO_KANBAN = 100;
+
     private final PedidoRepository pedidoRepository;
+    private final ClienteRepository clienteRepository;
     private final PedidoMapper pedidoMapper;
     private final ClienteMetricasService clienteMetricasService;
+    private final MetricasRecalculoQueue metricasRecalculoQueue;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProducaoCozinha producaoCozinha;
+    private final VendasService vendasService;
+
+    @Value("${app.metricas.recalculo.assincrono:false}")
+    private boolean recalculoAssincrono;
 
     @Transactional(readOnly = true)
     public List<PedidoDTO> listarPorStatus(StatusPedido status) {
@@ -36,16 +67,84 @@ public class PedidoService {
         List<Pedido> pedidos;
         
         if (status != null) {
-            pedidos = pedidoRepository.findByStatusOrderByDataCriacaoDesc(status);
+            pedidos = pedidoRepository.findByStatusComCliente(status);
         } else {
-            pedidos = pedidoRepository.findAll();
+            pedidos = pedidoRepository.findAllComCliente();
         }
+        carregarItens(pedidos);
         
         return pedidos.stream()
                 .map(pedidoMapper::toDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Monta o quadro Kanban com a primeira página de cada coluna.
+     * Custo limitado por colunas x limite: uma consulta por coluna (com cliente)
+     * e uma única consulta para os itens de todos os pedidos retornados.
+     */
+    @Transactional(readOnly = true)
+    public Map<StatusPedido, KanbanColunaDTO> montarKanban(List<StatusPedido> statuses, Integer limite) {
+        List<StatusPedido> colunas = statuses == null || statuses.isEmpty()
+                ? COLUNAS_KANBAN
+                : List.copyOf(new LinkedHashSet<>(statuses));
+        int tamanho = normalizarLimiteKanban(limite);
+        log.debug("Montando Kanban para colunas {} (limite {})", colunas, tamanho);
+
+        Map<StatusPedido, List<Pedido>> paginas = new LinkedHashMap<>();
+        for (StatusPedido status : colunas) {
+            paginas.put(status, pedidoRepository.findColunaKanban(status, Limit.of(tamanho + 1)));
+        }
+        carregarItens(paginas.values().stream().flatMap(List::stream).toList());
+
+        Map<StatusPedido, KanbanColunaDTO> kanban = new LinkedHashMap<>();
+        paginas.forEach((status, pedidos) -> kanban.put(status, montarColuna(pedidos, tamanho)));
+        return kanban;
+    }
+
+    /**
+     * Próxima página de uma coluna do Kanban a partir do cursor devolvido na página anterior.
+     */
+    @Transactional(readOnly = true)
+    public KanbanColunaDTO listarColunaKanban(StatusPedido status, String cursor, Integer limite) {
+        int tamanho = normalizarLimiteKanban(limite);
+        log.debug("Listando coluna {} do Kanban (cursor: {}, limite {})", status, cursor, tamanho);
+
+        List<Pedido> pedidos;
+        if (cursor == null || cursor.isBlank()) {
+            pedidos = pedidoRepository.findColunaKanban(status, Limit.of(tamanho + 1));
+        } else {
+            KanbanCursor posicao = KanbanCursor.decodificar(cursor);
+            pedidos = pedidoRepository.findColunaKanbanApos(
+                    status, posicao.dataCriacao(), posicao.id(), Limit.of(tamanho + 1));
+        }
+        carregarItens(pedidos);
+        return montarColuna(pedidos, tamanho);
+    }
+
+    private KanbanColunaDTO montarColuna(List<Pedido> pedidos, int tamanho) {
+        boolean temMais = pedidos.size() > tamanho;
+        List<Pedido> pagina = temMais ? pedidos.subList(0, tamanho) : pedidos;
+        return KanbanColunaDTO.builder()
+                .pedidos(pagina.stream().map(pedidoMapper::toDTO).collect(Collectors.toList()))
+                .proximoCursor(temMais ? KanbanCursor.de(pagina.get(pagina.size() - 1)).codificar() : null)
+                .temMais(temMais)
+                .build();
+    }
+
+    private void carregarItens(List<Pedido> pedidos) {
+        if (!pedidos.isEmpty()) {
+            pedidoRepository.carregarItens(pedidos);
+        }
+    }
+
+    private int normalizarLimiteKanban(Integer limite) {
+        if (limite == null || limite <= 0) {
+            return LIMITE_PADRAO_KANBAN;
+        }
+        return Math.min(limite, LIMITE_MAXIMO_KANBAN);
+    }
+
     @Transactional(readOnly = true)
     public Page<PedidoDTO> listarPorCliente(UUID clienteId, Pageable pageable) {
         log.debug("Listando pedidos do cliente: {}", clienteId);
@@ -56,12 +155,30 @@ public class PedidoService {
     public PedidoDTO criar(PedidoDTO dto) {
         log.info("Criando novo pedido para cliente: {}", dto.getClienteId());
         
-        // Criar pedido
+        Pedido entity = novoPedido(dto);
+        entity.setDataCriacao(Instant.now());
+        
+        entity = pedidoRepository.save(entity);
+        log.info("Pedido criado: {} - R$ {}", entity.getId(), entity.getValorTotal());
+        producaoCozinha.atualizar(entity);
+        vendasService.registrarCriacao(entity);
+        
+        // Atualizar data do último pedido do cliente
+        clienteMetricasService.atualizarUltimoPedido(entity.getClienteId(), entity.getDataCriacao());
+        
+        PedidoDTO criado = pedidoMapper.toDTO(entity);
+        publicarEvento(TipoEventoPedido.CRIADO, criado, null);
+        return criado;
+    }
+
+    /**
+     * Monta o pedido (sem data de criação) com seus itens e o valor total calculado.
+     */
+    Pedido novoPedido(PedidoDTO dto) {
         Pedido entity = new Pedido();
         entity.setClienteId(dto.getClienteId());
         entity.setStatus(dto.getStatus() != null ? dto.getStatus() : StatusPedido.RECEBIDO);
         entity.setCanal(dto.getCanal());
-        entity.setDataCriacao(Instant.now());
         entity.setObservacoes(dto.getObservacoes());
         
         // Calcular valor total e adicionar itens
@@ -81,14 +198,7 @@ public class PedidoService {
             }
         }
         entity.setValorTotal(valorTotal);
-        
-        entity = pedidoRepository.save(entity);
-        log.info("Pedido criado: {} - R$ {}", entity.getId(), entity.getValorTotal());
-        
-        // Atualizar data do último pedido do cliente
-        clienteMetricasService.atualizarUltimoPedido(entity.getClienteId(), entity.getDataCriacao());
-        
-        return pedidoMapper.toDTO(entity);
+        return entity;
     }
 
     public PedidoDTO atualizar(UUID id, PedidoDTO dto) {
@@ -97,7 +207,7 @@ public class PedidoService {
         Pedido entity = pedidoRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Pedido não encontrado"));
         
-        StatusPedido statusAnterior = entity.getStatus();
+        BigDecimal valorAnterior = entity.getValorTotal();
         
         // Atualizar campos básicos
         if (dto.getObservacoes() != null) {
@@ -106,6 +216,8 @@ public class PedidoService {
         
         // Atualizar itens se fornecidos
         if (dto.getItens() != null) {
+            // Itens não sujam o pedido; marca a alteração para a versão (updatedAt) mudar
+            entity.setUpdatedAt(Instant.now());
             entity.getItens().clear();
             for (PedidoItemDTO itemDto : dto.getItens()) {
                 PedidoItem item = pedidoMapper.toItemEntity(itemDto);
@@ -120,14 +232,41 @@ public class PedidoService {
         }
         
         entity = pedidoRepository.save(entity);
+        if (dto.getItens() != null) {
+            producaoCozinha.atualizar(entity);
+            vendasService.registrarAlteracaoValor(entity, valorAnterior);
+        }
         
-        // Se o status mudou para ENTREGUE, recalcular métricas
-        if (entity.getStatus() == StatusPedido.ENTREGUE && statusAnterior != StatusPedido.ENTREGUE) {
-            log.info("Pedido atualizado e entregue. Recalculando métricas do cliente {}", entity.getClienteId());
-            clienteMetricasService.recalcularMetricasCliente(entity.getClienteId());
+        // Se o pedido já foi entregue, refletir a diferença de valor nas métricas do cliente
+        if (entity.getDataEntrega() != null && !recalculoAgendado(entity.getClienteId())) {
+            clienteMetricasService.ajustarValorEntregue(
+                    entity.getClienteId(), entity.getValorTotal().subtract(valorAnterior));
         }
         
-        return pedidoMapper.toDTO(entity);
+        PedidoDTO atualizado = pedidoMapper.toDTO(entity);
+        publicarEvento(TipoEventoPedido.ATUALIZADO, atualizado, null);
+        return atualizado;
+    }
+
+    /**
+     * Versão das listagens de pedidos (inclui clientes, cujo nome aparece no DTO).
+     */
+    @Transactional(readOnly = true)
+    public VersaoRecurso versao() {
+        return pedidoRepository.versao().combinar(clienteRepository.versao());
+    }
+
+    @Transactional(readOnly = true)
+    public VersaoRecurso versao(UUID id) {
+        return pedidoRepository.versao(id);
+    }
+
+    /**
+     * Totais a preparar dos pedidos em produção, do agregado em memória (sem consultar o banco).
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ProducaoCozinhaDTO obterProducao() {
+        return producaoCozinha.consultar();
     }
 
     @Transactional(readOnly = true)
@@ -149,14 +288,33 @@ public class PedidoService {
         
         // Se mudou para ENTREGUE, registrar data de entrega e atualizar métricas
         if (novoStatus == StatusPedido.ENTREGUE && statusAnterior != StatusPedido.ENTREGUE) {
+            Instant entregaAnterior = entity.getDataEntrega();
             entity.setDataEntrega(Instant.now());
-            log.info("Pedido {} entregue. Recalculando métricas do cliente {}", id, entity.getClienteId());
+            log.info("Pedido {} entregue. Atualizando métricas do cliente {}", id, entity.getClienteId());
             
             // Salvar primeiro para garantir que a data de entrega está registrada
             entity = pedidoRepository.save(entity);
             
-            // Recalcular métricas do cliente
-            clienteMetricasService.recalcularMetricasCliente(entity.getClienteId());
+            if (!recalculoAgendado(entity.getClienteId())) {
+                // Pedido entregue novamente: a entrega anterior sai dos agregados
+                if (entregaAnterior != null) {
+                    clienteMetricasService.removerEntrega(
+                            entity.getClienteId(), entity.getId(), entregaAnterior, entity.getValorTotal());
+                }
+                clienteMetricasService.registrarEntrega(
+                        entity.getClienteId(), entity.getId(), entity.getDataEntrega(), entity.getValorTotal());
+            }
+        } else if (statusAnterior == StatusPedido.ENTREGUE && novoStatus != StatusPedido.CANCELADO
+                && entity.getDataEntrega() != null) {
+            // Voltou para o Kanban (entrega desfeita): deixa de contar nas métricas
+            Instant entregaAnterior = entity.getDataEntrega();
+            entity.setDataEntrega(null);
+            log.info("Entrega do pedido {} desfeita. Atualizando métricas do cliente {}", id, entity.getClienteId());
+            entity = pedidoRepository.save(entity);
+            if (!recalculoAgendado(entity.getClienteId())) {
+                clienteMetricasService.removerEntrega(
+                        entity.getClienteId(), entity.getId(), entregaAnterior, entity.getValorTotal());
+            }
         } else if (novoStatus == StatusPedido.CANCELADO) {
             // Se foi cancelado (finalizado), NÃO recalcular métricas
             // As métricas já foram contabilizadas quando estava ENTREGUE
@@ -165,8 +323,106 @@ public class PedidoService {
         } else {
             entity = pedidoRepository.save(entity);
         }
+        producaoCozinha.atualizarStatus(entity);
+        vendasService.registrarMudancaStatus(entity, statusAnterior);
         
-        return pedidoMapper.toDTO(entity);
+        PedidoDTO atualizado = pedidoMapper.toDTO(entity);
+        publicarEvento(TipoEventoPedido.STATUS_ALTERADO, atualizado, statusAnterior);
+        return atualizado;
+    }
+
+    /**
+     * Move vários pedidos para o mesmo status (ex.: PRONTO → ENTREGUE no fechamento).
+     * Carrega os pedidos em uma consulta, grava as alterações em um único flush (em lote JDBC,
+     * hibernate.jdbc.batch_size) e atualiza as métricas uma vez por cliente: incremental
+     * quando o cliente tem uma única entrega afetada, recálculo completo quando tem várias.
+     * Ids inexistentes ou já no status são reportados no resultado, sem abortar o lote.
+     */
+    public List<StatusLoteResultadoDTO> atualizarStatusEmLote(List<UUID> ids, StatusPedido novoStatus) {
+        Set<UUID> distintos = new LinkedHashSet<>(ids);
+        log.info("Atualizando status de {} pedidos para {}", distintos.size(), novoStatus);
+
+        List<Pedido> pedidos = pedidoRepository.findAllByIdComCliente(distintos);
+        carregarItens(pedidos);
+        Map<UUID, Pedido> porId = pedidos.stream().collect(Collectors.toMap(Pedido::getId, p -> p));
+
+        List<StatusLoteResultadoDTO> resultados = new ArrayList<>();
+        List<Pedido> alterados = new ArrayList<>();
+        Map<UUID, StatusPedido> statusAnteriores = new HashMap<>();
+        Map<UUID, List<EntregaAlterada>> entregasPorCliente = new LinkedHashMap<>();
+        Instant agora = Instant.now();
+
+        for (UUID id : distintos) {
+            Pedido pedido = porId.get(id);
+            if (pedido == null) {
+                resultados.add(StatusLoteResultadoDTO.builder()
+                        .pedidoId(id)
+                        .alterado(false)
+                        .erro("Pedido não encontrado")
+                        .build());
+                continue;
+            }
+            StatusPedido statusAnterior = pedido.getStatus();
+            resultados.add(StatusLoteResultadoDTO.builder()
+                    .pedidoId(id)
+                    .statusAnterior(statusAnterior)
+                    .status(novoStatus)
+                    .alterado(statusAnterior != novoStatus)
+                    .build());
+            if (statusAnterior == novoStatus) {
+                continue;
+            }
+
+            // Mesmas regras de atualizarStatus para a data de entrega
+            Instant entregaAnterior = pedido.getDataEntrega();
+            pedido.setStatus(novoStatus);
+            if (novoStatus == StatusPedido.ENTREGUE) {
+                pedido.setDataEntrega(agora);
+            } else if (statusAnterior == StatusPedido.ENTREGUE && novoStatus != StatusPedido.CANCELADO) {
+                pedido.setDataEntrega(null);
+            }
+            if (!Objects.equals(entregaAnterior, pedido.getDataEntrega())) {
+                entregasPorCliente.computeIfAbsent(pedido.getClienteId(), c -> new ArrayList<>())
+                        .add(new EntregaAlterada(pedido, entregaAnterior));
+            }
+            statusAnteriores.put(id, statusAnterior);
+            alterados.add(pedido);
+        }
+
+        if (alterados.isEmpty()) {
+            return resultados;
+        }
+        pedidoRepository.flush();
+
+        entregasPorCliente.forEach((clienteId, entregas) -> {
+            if (recalculoAgendado(clienteId)) {
+                return;
+            }
+            if (entregas.size() == 1) {
+                EntregaAlterada entrega = entregas.get(0);
+                Pedido pedido = entrega.pedido();
+                if (entrega.entregaAnterior() != null) {
+                    clienteMetricasService.removerEntrega(
+                            clienteId, pedido.getId(), entrega.entregaAnterior(), pedido.getValorTotal());
+                }
+                if (pedido.getDataEntrega() != null) {
+                    clienteMetricasService.registrarEntrega(
+                            clienteId, pedido.getId(), pedido.getDataEntrega(), pedido.getValorTotal());
+                }
+            } else {
+                clienteMetricasService.recalcularMetricasCliente(clienteId);
+            }
+        });
+
+        vendasService.registrarMudancasStatus(alterados, statusAnteriores);
+        for (Pedido pedido : alterados) {
+            producaoCozinha.atualizarStatus(pedido);
+            publicarEvento(TipoEventoPedido.STATUS_ALTERADO, pedidoMapper.toDTO(pedido),
+                    statusAnteriores.get(pedido.getId()));
+        }
+        log.info("Status de {} pedidos atualizado para {} ({} clientes com métricas afetadas)",
+                 alterados.size(), novoStatus, entregasPorCliente.size());
+        return resultados;
     }
 
     public void deletar(UUID id) {
@@ -175,15 +431,53 @@ public class PedidoService {
                 .orElseThrow(() -> new IllegalArgumentException("Pedido não encontrado"));
         
         UUID clienteId = pedido.getClienteId();
-        boolean eraEntregue = pedido.getStatus() == StatusPedido.ENTREGUE;
+        StatusPedido statusAnterior = pedido.getStatus();
+        Instant dataEntrega = pedido.getDataEntrega();
+        BigDecimal valorTotal = pedido.getValorTotal();
         
+        vendasService.registrarRemocao(pedido);
         pedidoRepository.deleteById(id);
+        producaoCozinha.remover(id);
+        eventPublisher.publishEvent(PedidoEventoDTO.builder()
+                .tipo(TipoEventoPedido.REMOVIDO)
+                .pedidoId(id)
+                .statusAnterior(statusAnterior)
+                .timestamp(Instant.now())
+                .build());
         
-        // Se era entregue, recalcular métricas
-        if (eraEntregue) {
-            log.info("Pedido entregue deletado. Recalculando métricas do cliente {}", clienteId);
-            clienteMetricasService.recalcularMetricasCliente(clienteId);
+        // Se contava como entregue, remover dos agregados do cliente
+        if (dataEntrega != null && !recalculoAgendado(clienteId)) {
+            log.info("Pedido entregue deletado. Atualizando métricas do cliente {}", clienteId);
+            clienteMetricasService.removerEntrega(clienteId, id, dataEntrega, valorTotal);
         }
     }
-}
 
+    /**
+     * No modo assíncrono, agenda o recálculo coalescido das métricas do cliente para depois
+     * do commit e retorna true; caso contrário o chamador aplica a atualização incremental.
+     */
+    private boolean recalculoAgendado(UUID clienteId) {
+        if (!recalculoAssincrono) {
+            return false;
+        }
+        metricasRecalculoQueue.agendar(clienteId);
+        return true;
+    }
+
+    private record EntregaAlterada(Pedido pedido, Instant entregaAnterior) {
+    }
+
+    /**
+     * Publica o evento para o stream SSE; a entrega ocorre apenas após o commit da transação.
+     */
+    private void publicarEvento(TipoEventoPedido tipo, PedidoDTO pedido, StatusPedido statusAnterior) {
+        eventPublisher.publishEvent(PedidoEventoDTO.builder()
+                .tipo(tipo)
+                .pedidoId(pedido.getId())
+                .status(pedido.getStatus())
+                .statusAnterior(statusAnterior)
+                .pedido(pedido)
+                .timestamp(Instant.now())
+                .build());
+    }
+}
@@ -0,0 +1,180 @@
+package br.com.anacarla.erp.service;
+
+import br.com.anacarla.erp.datasource.LeituraNoPrimario;
+import br.com.anacarla.erp.domain.Pedido;
+import br.com.anacarla.erp.domain.PedidoItem;
+import br.com.anacarla.erp.domain.QuantidadeProducao;
+import br.com.anacarla.erp.domain.enums.StatusPedido;
+import br.com.anacarla.erp.repository.PedidoRepository;
+import br.com.anacarla.erp.web.dto.ProducaoCozinhaDTO;
+import br.com.anacarla.erp.web.dto.ProducaoItemDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Totais do que a cozinha tem a preparar: soma das quantidades por item (itemId + nome) dos
+ * pedidos RECEBIDO e PREPARANDO, mantida em memória. Consultas não tocam o banco.
+ *
+ * Guarda a contribuição de cada pedido em produção, então cada alteração substitui a
+ * contribuição anterior do pedido em vez de somar deltas. Reconstruída na subida com uma
+ * única consulta agregada, atualizada após o commit das alterações feitas nesta instância e
+ * reconstruída periodicamente para absorver alterações de outras réplicas.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProducaoCozinha {
+
+    static final Set<StatusPedido> EM_PRODUCAO = EnumSet.of(StatusPedido.RECEBIDO, StatusPedido.PREPARANDO);
+
+    private static final Comparator<ProducaoItemDTO> ORDEM = Comparator
+            .comparing(ProducaoItemDTO::getQuantidade, Comparator.reverseOrder())
+            .thenComparing(ProducaoItemDTO::getNome);
+
+    private final PedidoRepository pedidoRepository;
+
+    private Map<UUID, Map<Item, Integer>> porPedido = new HashMap<>();
+    private final Map<Item, Integer> totais = new HashMap<>();
+    private Instant atualizadoEm = Instant.now();
+
+    // Durante a reconstrução, pedidos alterados nesta instância (a leitura pode estar defasada)
+    private Set<UUID> alteradosDuranteConstrucao;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.pedidos.producao.reconstrucao-ms:60000}",
+               initialDelayString = "${app.pedidos.producao.reconstrucao-ms:60000}")
+    @Transactional(readOnly = true)
+    @LeituraNoPrimario
+    public void reconstruir() {
+        long inicio = System.currentTimeMillis();
+        Set<UUID> alterados = new HashSet<>();
+        synchronized (this) {
+            alteradosDuranteConstrucao = alterados;
+        }
+        try {
+            Map<UUID, Map<Item, Integer>> novo = new HashMap<>();
+            for (QuantidadeProducao linha : pedidoRepository.somarItensPorStatus(EM_PRODUCAO)) {
+                novo.computeIfAbsent(linha.pedidoId(), id -> new HashMap<>())
+                        .merge(new Item(linha.itemId(), linha.nome()), linha.quantidade().intValue(), Integer::sum);
+            }
+            synchronized (this) {
+                for (UUID pedidoId : alterados) {
+                    Map<Item, Integer> atual = porPedido.get(pedidoId);
+                    if (atual != null) {
+                        novo.put(pedidoId, atual);
+                    } else {
+                        novo.remove(pedidoId);
+                    }
+                }
+                porPedido = novo;
+                totais.clear();
+                novo.values().forEach(contribuicao -> somar(contribuicao, 1));
+                atualizadoEm = Instant.now();
+            }
+            log.debug("Produção da cozinha reconstruída: {} pedidos em {} ms",
+                      novo.size(), System.currentTimeMillis() - inicio);
+        } catch (Exception e) {
+            log.error("Erro ao reconstruir produção da cozinha; mantendo os totais atuais", e);
+        } finally {
+            synchronized (this) {
+                if (alteradosDuranteConstrucao == alterados) {
+                    alteradosDuranteConstrucao = null;
+                }
+            }
+        }
+    }
+
+    public synchronized ProducaoCozinhaDTO consultar() {
+        List<ProducaoItemDTO> itens = totais.entrySet().stream()
+                .map(e -> ProducaoItemDTO.builder()
+                        .itemId(e.getKey().itemId())
+                        .nome(e.getKey().nome())
+                        .quantidade(e.getValue())
+                        .build())
+                .sorted(ORDEM)
+                .toList();
+        return ProducaoCozinhaDTO.builder()
+                .pedidos(porPedido.size())
+                .itens(itens)
+                .atualizadoEm(atualizadoEm)
+                .build();
+    }
+
+    /**
+     * Substitui a contribuição do pedido (criado ou com itens alterados) após o commit.
+     */
+    public void atualizar(Pedido pedido) {
+        UUID pedidoId = pedido.getId();
+        Map<Item, Integer> contribuicao = contribuicao(pedido);
+        AposCommit.executar(() -> aplicar(pedidoId, contribuicao));
+    }
+
+    /**
+     * Mudança de status: só carrega os itens quando o pedido entra em produção.
+     */
+    public void atualizarStatus(Pedido pedido) {
+        if (!EM_PRODUCAO.contains(pedido.getStatus())) {
+            remover(pedido.getId());
+        } else if (!emProducao(pedido.getId())) {
+            atualizar(pedido);
+        }
+    }
+
+    public void remover(UUID pedidoId) {
+        AposCommit.executar(() -> aplicar(pedidoId, Map.of()));
+    }
+
+    private synchronized boolean emProducao(UUID pedidoId) {
+        return porPedido.containsKey(pedidoId);
+    }
+
+    private synchronized void aplicar(UUID pedidoId, Map<Item, Integer> contribuicao) {
+        Map<Item, Integer> anterior = contribuicao.isEmpty()
+                ? porPedido.remove(pedidoId)
+                : porPedido.put(pedidoId, contribuicao);
+        if (anterior != null) {
+            somar(anterior, -1);
+        }
+        somar(contribuicao, 1);
+        if (alteradosDuranteConstrucao != null) {
+            alteradosDuranteConstrucao.add(pedidoId);
+        }
+        atualizadoEm = Instant.now();
+    }
+
+    private void somar(Map<Item, Integer> contribuicao, int sinal) {
+        contribuicao.forEach((item, quantidade) -> totais.compute(item, (k, total) -> {
+            int novo = (total != null ? total : 0) + sinal * quantidade;
+            return novo > 0 ? novo : null;
+        }));
+    }
+
+    private static Map<Item, Integer> contribuicao(Pedido pedido) {
+        if (!EM_PRODUCAO.contains(pedido.getStatus())) {
+            return Map.of();
+        }
+        Map<Item, Integer> contribuicao = new HashMap<>();
+        for (PedidoItem item : pedido.getItens()) {
+            contribuicao.merge(new Item(item.getItemId(), item.getNome()), item.getQuantidade(), Integer::sum);
+        }
+        return contribuicao;
+    }
+
+    private record Item(UUID itemId, String nome) {
+    }
+}
@@ -0,0 +1,236 @@
+package br.com.anacarla.erp.service;
+
+import br.com.anacarla.erp.domain.Pedido;
+import br.com.anacarla.erp.domain.enums.CanalPedido;
+import br.com.anacarla.erp.domain.enums.StatusPedido;
+import br.com.anacarla.erp.repository.VendasDiariasJdbcRepository;
+import br.com.anacarla.erp.web.dto.VendasPeriodoDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Rollup vendas_diarias, usado pelos painéis de vendas, que assim leem algumas centenas de
+ * linhas em vez de somar pedidos.
+ *
+ * As alterações de pedidos não atualizam vendas_diarias na própria transação: isso prenderia
+ * cada uma no lock da linha do dia (todos os pedidos de hoje num mesmo canal/status disputam a
+ * mesma linha) até o commit. Elas inserem deltas em vendas_diarias_delta, só INSERT e na mesma
+ * transação (somem no rollback, sobrevivem a uma queda da instância), e um job os consolida
+ * periodicamente em transações curtas. Os painéis ficam até um intervalo atrás.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VendasService {
+
+    private static final long DIAS_MAXIMOS_DIARIO = 366;
+    private static final int LOTE_CONSOLIDACAO = 5000;
+
+    private final VendasDiariasJdbcRepository vendasDiariasJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private Counter deltasConsolidados;
+
+    @Value("${app.vendas.fuso:America/Sao_Paulo}")
+    private String fuso;
+
+    @PostConstruct
+    void iniciar() {
+        deltasConsolidados = Counter.builder("vendas.rollup.deltas")
+                .description("Deltas de pedidos consolidados no rollup de vendas")
+                .register(meterRegistry);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarCriacao(Pedido pedido) {
+        registrar(Map.of(linha(pedido, pedido.getStatus()), new Delta(1, pedido.getValorTotal())));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarAlteracaoValor(Pedido pedido, BigDecimal valorAnterior) {
+        BigDecimal diferenca = pedido.getValorTotal().subtract(valorAnterior);
+        if (diferenca.signum() != 0) {
+            registrar(Map.of(linha(pedido, pedido.getStatus()), new Delta(0, diferenca)));
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarMudancaStatus(Pedido pedido, StatusPedido statusAnterior) {
+        if (statusAnterior == pedido.getStatus()) {
+            return;
+        }
+        registrar(Map.of(
+                linha(pedido, statusAnterior), new Delta(-1, pedido.getValorTotal().negate()),
+                linha(pedido, pedido.getStatus()), new Delta(1, pedido.getValorTotal())));
+    }
+
+    /**
+     * Pedidos criados em lote (importação), somados por linha do rollup.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarCriacoes(List<Pedido> pedidos) {
+        Map<Linha, Delta> deltas = new HashMap<>();
+        for (Pedido pedido : pedidos) {
+            deltas.merge(linha(pedido, pedido.getStatus()), new Delta(1, pedido.getValorTotal()), Delta::somar);
+        }
+        registrar(deltas);
+    }
+
+    /**
+     * Mudanças de status em lote, somadas por linha do rollup.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarMudancasStatus(List<Pedido> pedidos, Map<UUID, StatusPedido> statusAnteriores) {
+        Map<Linha, Delta> deltas = new HashMap<>();
+        for (Pedido pedido : pedidos) {
+            StatusPedido statusAnterior = statusAnteriores.get(pedido.getId());
+            if (statusAnterior == null || statusAnterior == pedido.getStatus()) {
+                continue;
+            }
+            deltas.merge(linha(pedido, statusAnterior), new Delta(-1, pedido.getValorTotal().negate()), Delta::somar);
+            deltas.merge(linha(pedido, pedido.getStatus()), new Delta(1, pedido.getValorTotal()), Delta::somar);
+        }
+        registrar(deltas);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarRemocao(Pedido pedido) {
+        registrar(Map.of(linha(pedido, pedido.getStatus()), new Delta(-1, pedido.getValorTotal().negate())));
+    }
+
+    /**
+     * Consolida os deltas gravados pelas alterações de pedidos em vendas_diarias, em lotes,
+     * cada um numa transação própria. Pode rodar em várias réplicas ao mesmo tempo.
+     */
+    @Scheduled(fixedDelayString = "${app.vendas.rollup.intervalo-ms:1000}")
+    public void aplicarPendentes() {
+        int deltas;
+        do {
+            deltas = transactionTemplate.execute(status -> vendasDiariasJdbcRepository.consolidarDeltas(LOTE_CONSOLIDACAO));
+            deltasConsolidados.increment(deltas);
+            log.debug("Rollup de vendas: {} deltas consolidados", deltas);
+        } while (deltas == LOTE_CONSOLIDACAO);
+    }
+
+    /**
+     * Refaz o rollup do período a partir dos pedidos (sem datas: todo o histórico), descartando
+     * os deltas do período ainda não consolidados. Alterações de pedidos esperam o fim da
+     * reconstrução para gravar seus deltas.
+     *
+     * @return linhas gravadas
+     */
+    @Transactional
+    public int reconstruir(LocalDate de, LocalDate ate) {
+        if (de == null) {
+            LocalDateTime primeiro = vendasDiariasJdbcRepository.primeiroPedido();
+            de = primeiro != null ? dia(primeiro.toInstant(ZoneOffset.UTC)) : hoje();
+        }
+        if (ate == null) {
+            ate = hoje();
+        }
+        validarPeriodo(de, ate);
+
+        long inicio = System.currentTimeMillis();
+        int linhas = vendasDiariasJdbcRepository.reconstruir(de, ate, fuso);
+        log.info("Rollup de vendas reconstruído de {} a {}: {} linhas em {} ms",
+                 de, ate, linhas, System.currentTimeMillis() - inicio);
+        return linhas;
+    }
+
+    @Transactional(readOnly = true)
+    public List<VendasPeriodoDTO> diario(LocalDate de, LocalDate ate, CanalPedido canal, Collection<StatusPedido> status) {
+        LocalDate fim = ate != null ? ate : hoje();
+        LocalDate inicio = de != null ? de : fim.minusDays(29);
+        validarPeriodo(inicio, fim);
+        if (ChronoUnit.DAYS.between(inicio, fim) >= DIAS_MAXIMOS_DIARIO) {
+            throw new IllegalArgumentException("Período diário limitado a " + DIAS_MAXIMOS_DIARIO + " dias; use a visão mensal");
+        }
+        return vendasDiariasJdbcRepository.totaisPorPeriodo("day", inicio, fim, canal, status(status));
+    }
+
+    @Transactional(readOnly = true)
+    public List<VendasPeriodoDTO> mensal(Integer ano, CanalPedido canal, Collection<StatusPedido> status) {
+        int anoConsulta = ano != null ? ano : hoje().getYear();
+        return vendasDiariasJdbcRepository.totaisPorPeriodo("month",
+                LocalDate.of(anoConsulta, 1, 1), LocalDate.of(anoConsulta, 12, 31), canal, status(status));
+    }
+
+    @Transactional(readOnly = true)
+    public List<VendasPeriodoDTO> anual(Integer de, Integer ate, CanalPedido canal, Collection<StatusPedido> status) {
+        int anoFinal = ate != null ? ate : hoje().getYear();
+        int anoInicial = de != null ? de : anoFinal - 9;
+        LocalDate inicio = LocalDate.of(anoInicial, 1, 1);
+        LocalDate fim = LocalDate.of(anoFinal, 12, 31);
+        validarPeriodo(inicio, fim);
+        return vendasDiariasJdbcRepository.totaisPorPeriodo("year", inicio, fim, canal, status(status));
+    }
+
+    // Na transação da alteração do pedido
+    private void registrar(Map<Linha, Delta> deltas) {
+        deltas.forEach((linha, delta) -> {
+            if (delta.pedidos() != 0 || delta.valor().signum() != 0) {
+                vendasDiariasJdbcRepository.inserirDelta(linha.dia(), linha.canal(), linha.status(),
+                        delta.pedidos(), delta.valor());
+            }
+        });
+    }
+
+    private Linha linha(Pedido pedido, StatusPedido status) {
+        return new Linha(dia(pedido.getDataCriacao()), pedido.getCanal(), status);
+    }
+
+    private LocalDate dia(Instant instante) {
+        return instante.atZone(ZoneId.of(fuso)).toLocalDate();
+    }
+
+    private LocalDate hoje() {
+        return LocalDate.now(ZoneId.of(fuso));
+    }
+
+    // Sem filtro de status, cancelados ficam de fora da receita
+    private static Collection<StatusPedido> status(Collection<StatusPedido> status) {
+        return status == null || status.isEmpty()
+                ? EnumSet.complementOf(EnumSet.of(StatusPedido.CANCELADO))
+                : status;
+    }
+
+    private static void validarPeriodo(LocalDate de, LocalDate ate) {
+        if (de.isAfter(ate)) {
+            throw new IllegalArgumentException("Data inicial posterior à data final");
+        }
+    }
+
+    private record Linha(LocalDate dia, CanalPedido canal, StatusPedido status) {
+    }
+
+    private record Delta(int pedidos, BigDecimal valor) {
+
+        Delta somar(Delta outro) {
+            return new Delta(pedidos + outro.pedidos, valor.add(outro.valor));
+        }
+    }
+}
@@ -7,6 +7,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -19,6 +20,19 @@ import java.util.UUID;
 public class WhatsAppService {
 
     private final InteracaoService interacaoService;
+    private final ClienteService clienteService;
+
+    /**
+     * Identifica o cliente pelo número de origem de uma mensagem recebida
+     * (ex.: "5511987654321" vindo do webhook), em qualquer formatação.
+     */
+    public Optional<UUID> identificarCliente(String telefone) {
+        Optional<UUID> clienteId = clienteService.encontrarIdPorTelefone(telefone);
+        if (clienteId.isEmpty()) {
+            log.info("Nenhum cliente cadastrado com o telefone {}", telefone);
+        }
+        return clienteId;
+    }
 
     public void enviarTemplate(String templateId, UUID clienteId, String mensagem) {
         log.info("Simulando envio de template WhatsApp '{}' para cliente {}", templateId, clienteId);
@@ -0,0 +1,106 @@
+package br.com.anacarla.erp.sql;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Contagem de statements SQL e tempo de JDBC na thread atual, alimentada pelo proxy do
+ * DataSource (todo acesso: Hibernate e JdbcTemplate).
+ *
+ * Conta execuções (ida ao banco): um executeBatch vale um statement, não um por linha.
+ * Medições podem ser aninhadas (o teste em volta da requisição e o filtro da requisição);
+ * cada statement soma em todas as medições abertas na thread.
+ */
+public final class ContadorSql {
+
+    private static final String INICIO = ContadorSql.class.getName() + ".inicio";
+
+    private static final ThreadLocal<Deque<Medicao>> ABERTAS = new ThreadLocal<>();
+
+    private ContadorSql() {
+    }
+
+    /**
+     * Abre uma medição na thread atual; fechar com {@link Medicao#close()}.
+     */
+    public static Medicao iniciar() {
+        Deque<Medicao> abertas = ABERTAS.get();
+        if (abertas == null) {
+            abertas = new ArrayDeque<>();
+            ABERTAS.set(abertas);
+        }
+        Medicao medicao = new Medicao();
+        abertas.push(medicao);
+        return medicao;
+    }
+
+    static void registrar(long nanos) {
+        Deque<Medicao> abertas = ABERTAS.get();
+        if (abertas != null) {
+            for (Medicao medicao : abertas) {
+                medicao.statements++;
+                medicao.nanos += nanos;
+            }
+        }
+    }
+
+    private static void encerrar(Medicao medicao) {
+        Deque<Medicao> abertas = ABERTAS.get();
+        if (abertas != null) {
+            abertas.remove(medicao);
+            if (abertas.isEmpty()) {
+                ABERTAS.remove();
+            }
+        }
+    }
+
+    /**
+     * Listener do datasource-proxy que alimenta as medições abertas.
+     */
+    public static QueryExecutionListener listener() {
+        return new QueryExecutionListener() {
+            @Override
+            public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                execInfo.addCustomValue(INICIO, System.nanoTime());
+            }
+
+            @Override
+            public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                Long inicio = execInfo.getCustomValue(INICIO, Long.class);
+                registrar(inicio != null ? System.nanoTime() - inicio : 0);
+            }
+        };
+    }
+
+    public static final class Medicao implements AutoCloseable {
+
+        private int statements;
+        private long nanos;
+
+        private Medicao() {
+        }
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public long getTempoNanos() {
+            return nanos;
+        }
+
+        public void zerar() {
+            statements = 0;
+            nanos = 0;
+        }
+
+        @Override
+        public void close() {
+            encerrar(this);
+        }
+    }
+}
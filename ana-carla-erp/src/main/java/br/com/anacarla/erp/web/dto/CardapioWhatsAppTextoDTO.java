@@ -0,0 +1,18 @@
+package br.com.anacarla.erp.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardapioWhatsAppTextoDTO {
+
+    private String texto;
+
+    // Hash do texto: igual entre réplicas e reinícios enquanto o cardápio não muda
+    private String etag;
+}
@@ -0,0 +1,28 @@
+package br.com.anacarla.erp.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ClienteAutocompleteDTO {
+
+    private UUID id;
+
+    private String nome;
+
+    private String telefones;
+
+    private String email;
+
+    private Instant ultimaCompra;
+}
@@ -0,0 +1,18 @@
+package br.com.anacarla.erp.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportacaoFalhaDTO {
+
+    // Número da linha no arquivo (a partir de 1)
+    private Long linha;
+
+    private String erro;
+}
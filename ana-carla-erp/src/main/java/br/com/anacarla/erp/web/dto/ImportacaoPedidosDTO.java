@@ -0,0 +1,31 @@
+package br.com.anacarla.erp.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportacaoPedidosDTO {
+
+    // Linhas não vazias lidas
+    private Long linhas;
+
+    private Long importados;
+
+    private Long rejeitados;
+
+    private Integer clientesAfetados;
+
+    private Long duracaoMs;
+
+    private Long linhasPorSegundo;
+
+    // Primeiras falhas (limitadas); o total está em rejeitados
+    private List<ImportacaoFalhaDTO> falhas;
+}
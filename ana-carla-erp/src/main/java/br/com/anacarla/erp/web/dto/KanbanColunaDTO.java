@@ -0,0 +1,24 @@
+package br.com.anacarla.erp.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class KanbanColunaDTO {
+
+    private List<PedidoDTO> pedidos;
+
+    // Cursor opaco para buscar a próxima página da coluna (null quando não há mais)
+    private String proximoCursor;
+
+    private boolean temMais;
+}
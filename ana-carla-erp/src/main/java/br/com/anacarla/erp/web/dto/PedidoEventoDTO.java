@@ -0,0 +1,36 @@
+package br.com.anacarla.erp.web.dto;
+
+import br.com.anacarla.erp.domain.enums.StatusPedido;
+import br.com.anacarla.erp.domain.enums.TipoEventoPedido;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PedidoEventoDTO {
+
+    // Sequencial da réplica que entrega o evento (o id SSE é "instância-sequencial")
+    private Long id;
+
+    private TipoEventoPedido tipo;
+
+    private UUID pedidoId;
+
+    private StatusPedido status;
+
+    private StatusPedido statusAnterior;
+
+    // Estado atual do pedido (ausente em REMOVIDO e em pedidos grandes demais para o NOTIFY)
+    private PedidoDTO pedido;
+
+    private Instant timestamp;
+}
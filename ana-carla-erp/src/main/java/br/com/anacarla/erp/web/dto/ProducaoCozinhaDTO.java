@@ -0,0 +1,24 @@
+package br.com.anacarla.erp.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProducaoCozinhaDTO {
+
+    // Pedidos RECEBIDO e PREPARANDO considerados
+    private Integer pedidos;
+
+    // Maior quantidade primeiro
+    private List<ProducaoItemDTO> itens;
+
+    private Instant atualizadoEm;
+}
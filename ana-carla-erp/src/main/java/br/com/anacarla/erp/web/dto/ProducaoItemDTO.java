@@ -0,0 +1,24 @@
+package br.com.anacarla.erp.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProducaoItemDTO {
+
+    // Null para itens digitados livremente, fora do cardápio
+    private UUID itemId;
+
+    private String nome;
+
+    private Integer quantidade;
+}
@@ -0,0 +1,29 @@
+package br.com.anacarla.erp.web.dto;
+
+import br.com.anacarla.erp.domain.enums.StatusPedido;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StatusLoteResultadoDTO {
+
+    private UUID pedidoId;
+
+    private StatusPedido statusAnterior;
+
+    private StatusPedido status;
+
+    // false quando o pedido já estava no status ou não foi encontrado (ver erro)
+    private Boolean alterado;
+
+    private String erro;
+}
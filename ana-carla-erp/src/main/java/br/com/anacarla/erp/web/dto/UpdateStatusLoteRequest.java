@@ -0,0 +1,25 @@
+package br.com.anacarla.erp.web.dto;
+
+import br.com.anacarla.erp.domain.enums.StatusPedido;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UpdateStatusLoteRequest {
+
+    @NotEmpty(message = "Informe ao menos um pedido")
+    @Size(max = 200, message = "Máximo de 200 pedidos por lote")
+    private List<UUID> ids;
+
+    @NotNull(message = "Status é obrigatório")
+    private StatusPedido status;
+}
@@ -0,0 +1,25 @@
+package br.com.anacarla.erp.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VendasPeriodoDTO {
+
+    // Primeiro dia do período (dia, mês ou ano)
+    private LocalDate periodo;
+
+    private Long pedidos;
+
+    private BigDecimal valorTotal;
+
+    private BigDecimal ticketMedio;
+}
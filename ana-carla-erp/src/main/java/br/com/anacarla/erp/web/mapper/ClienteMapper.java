@@ -20,6 +20,10 @@ public interface ClienteMapper {
     @Mapping(target = "intervaloMedioRecompra", ignore = true)
     @Mapping(target = "ltv", ignore = true)
     @Mapping(target = "rfm", ignore = true)
+    @Mapping(target = "primeiraEntrega", ignore = true)
+    @Mapping(target = "ultimaEntrega", ignore = true)
+    @Mapping(target = "somaIntervalosDias", ignore = true)
+    @Mapping(target = "buscaNormalizada", ignore = true)
     Cliente toEntity(ClienteDTO dto);
 
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
@@ -31,6 +35,10 @@ public interface ClienteMapper {
     @Mapping(target = "intervaloMedioRecompra", ignore = true)
     @Mapping(target = "ltv", ignore = true)
     @Mapping(target = "rfm", ignore = true)
+    @Mapping(target = "primeiraEntrega", ignore = true)
+    @Mapping(target = "ultimaEntrega", ignore = true)
+    @Mapping(target = "somaIntervalosDias", ignore = true)
+    @Mapping(target = "buscaNormalizada", ignore = true)
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
@@ -0,0 +1,16 @@
+-- V10__cliente_busca_normalizada.sql
+-- Busca de clientes sem acentos e indexada por trigramas.
+-- A coluna é mantida pela aplicação (TextoBusca.indexavel); aqui apenas o backfill.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+ALTER TABLE clientes ADD COLUMN IF NOT EXISTS busca_normalizada VARCHAR(1000);
+
+UPDATE clientes
+SET busca_normalizada =
+        TRIM(REGEXP_REPLACE(LOWER(unaccent(nome)), '\s+', ' ', 'g'))
+        || ' | ' || COALESCE(TRIM(REGEXP_REPLACE(LOWER(unaccent(email)), '\s+', ' ', 'g')), '')
+        || ' | ' || COALESCE(REGEXP_REPLACE(telefones, '[^0-9]', '', 'g'), '');
+
+CREATE INDEX IF NOT EXISTS idx_cliente_busca_trgm ON clientes USING gin (busca_normalizada gin_trgm_ops);
@@ -0,0 +1,52 @@
+-- V11__create_cliente_telefone.sql
+-- Telefones normalizados (E.164, só dígitos) para localizar o cliente de uma mensagem recebida
+
+CREATE TABLE cliente_telefone (
+    id UUID PRIMARY KEY,
+    cliente_id UUID NOT NULL,
+    numero VARCHAR(15) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    FOREIGN KEY (cliente_id) REFERENCES clientes(id) ON DELETE CASCADE
+);
+
+CREATE UNIQUE INDEX uk_cliente_telefone_numero ON cliente_telefone(numero);
+CREATE INDEX idx_cliente_telefone_cliente ON cliente_telefone(cliente_id);
+
+-- Backfill a partir de clientes.telefones (mesmas regras de TelefoneE164.normalizar).
+-- Número repetido entre clientes fica com o cliente mais antigo.
+WITH partes AS (
+    SELECT c.id AS cliente_id, c.created_at, TRIM(p.parte) AS parte
+    FROM clientes c
+    CROSS JOIN LATERAL regexp_split_to_table(c.telefones, '[,;/|\n]') AS p(parte)
+    WHERE c.telefones IS NOT NULL
+),
+digitos AS (
+    SELECT cliente_id, created_at, parte,
+           regexp_replace(parte, '[^0-9]', '', 'g') AS d
+    FROM partes
+),
+sem_prefixo AS (
+    SELECT cliente_id, created_at,
+           CASE
+               WHEN parte LIKE '+%' OR d LIKE '00%' THEN regexp_replace(d, '^00', '')
+               WHEN length(ltrim(d, '0')) IN (10, 11) THEN '55' || ltrim(d, '0')
+               ELSE ltrim(d, '0')
+           END AS d
+    FROM digitos
+),
+normalizados AS (
+    SELECT cliente_id, created_at,
+           CASE
+               WHEN length(d) = 12 AND d LIKE '55%' AND substr(d, 5, 1) >= '6'
+                   THEN substr(d, 1, 4) || '9' || substr(d, 5)
+               ELSE d
+           END AS numero
+    FROM sem_prefixo
+)
+INSERT INTO cliente_telefone (id, cliente_id, numero, created_at)
+SELECT DISTINCT ON (numero) gen_random_uuid(), cliente_id, numero, NOW() AT TIME ZONE 'UTC'
+FROM normalizados
+WHERE length(numero) BETWEEN 10 AND 15
+ORDER BY numero, created_at
+ON CONFLICT (numero) DO NOTHING;
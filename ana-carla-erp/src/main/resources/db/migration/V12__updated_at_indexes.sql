@@ -0,0 +1,5 @@
+-- V12__updated_at_indexes.sql
+-- MAX(updated_at) por índice para as respostas condicionais (ETag/Last-Modified) das listagens
+
+CREATE INDEX IF NOT EXISTS idx_cliente_updated_at ON clientes(updated_at);
+CREATE INDEX IF NOT EXISTS idx_pedido_updated_at ON pedidos(updated_at);
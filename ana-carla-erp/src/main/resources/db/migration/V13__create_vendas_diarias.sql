@@ -0,0 +1,19 @@
+-- V13__create_vendas_diarias.sql
+-- Rollup de vendas por dia (America/Sao_Paulo) x canal x status, mantido pelo PedidoService.
+-- Os painéis leem só esta tabela, sem somar pedidos.
+
+CREATE TABLE vendas_diarias (
+    dia DATE NOT NULL,
+    canal VARCHAR(50) NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    quantidade_pedidos INTEGER NOT NULL DEFAULT 0,
+    valor_total NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (dia, canal, status)
+);
+
+-- Histórico (data_criacao é gravada em UTC)
+INSERT INTO vendas_diarias (dia, canal, status, quantidade_pedidos, valor_total)
+SELECT (data_criacao AT TIME ZONE 'UTC' AT TIME ZONE 'America/Sao_Paulo')::DATE,
+       canal, status, COUNT(*), SUM(valor_total)
+FROM pedidos
+GROUP BY 1, 2, 3;
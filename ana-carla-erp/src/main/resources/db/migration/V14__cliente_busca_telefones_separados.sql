@@ -0,0 +1,17 @@
+-- V14__cliente_busca_telefones_separados.sql
+-- Dígitos de cada telefone separados por espaço em busca_normalizada (TextoBusca.indexavel):
+-- um termo só de dígitos não casa mais atravessando dois números do mesmo cliente.
+
+UPDATE clientes c
+SET busca_normalizada =
+        TRIM(REGEXP_REPLACE(LOWER(unaccent(c.nome)), '\s+', ' ', 'g'))
+        || ' | ' || COALESCE(TRIM(REGEXP_REPLACE(LOWER(unaccent(c.email)), '\s+', ' ', 'g')), '')
+        || ' | ' || COALESCE((
+            SELECT string_agg(t.digitos, ' ' ORDER BY t.ordem)
+            FROM (
+                SELECT REGEXP_REPLACE(p.parte, '[^0-9]', '', 'g') AS digitos, p.ordem
+                FROM regexp_split_to_table(c.telefones, '[,;/|\n]') WITH ORDINALITY AS p(parte, ordem)
+            ) t
+            WHERE t.digitos <> ''
+        ), '')
+WHERE c.telefones IS NOT NULL;
@@ -0,0 +1,14 @@
+-- V15__create_vendas_diarias_delta.sql
+-- Deltas do rollup vendas_diarias gravados na transação de cada alteração de pedido (só
+-- INSERT, sem disputar a linha do dia) e consolidados periodicamente em vendas_diarias.
+
+CREATE TABLE vendas_diarias_delta (
+    id BIGSERIAL PRIMARY KEY,
+    dia DATE NOT NULL,
+    canal VARCHAR(50) NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    quantidade_pedidos INTEGER NOT NULL,
+    valor_total NUMERIC(14, 2) NOT NULL
+);
+
+CREATE INDEX idx_vendas_diarias_delta_dia ON vendas_diarias_delta (dia);
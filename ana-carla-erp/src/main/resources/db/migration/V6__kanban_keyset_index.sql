@@ -0,0 +1,7 @@
+-- V6__kanban_keyset_index.sql
+-- Índice para paginação por chave (data_criacao, id) das colunas do Kanban
+
+CREATE INDEX IF NOT EXISTS idx_pedido_status_data_id ON pedidos(status, data_criacao DESC, id DESC);
+
+-- Coberto pelo novo índice (mesmo prefixo)
+DROP INDEX IF EXISTS idx_pedido_status_data;
@@ -0,0 +1,39 @@
+-- V7__add_agregados_entrega_to_clientes.sql
+-- Agregados incrementais das entregas do cliente (permitem atualizar métricas em O(1)
+-- sem recarregar todos os pedidos entregues)
+
+ALTER TABLE clientes ADD COLUMN IF NOT EXISTS primeira_entrega TIMESTAMP;
+ALTER TABLE clientes ADD COLUMN IF NOT EXISTS ultima_entrega TIMESTAMP;
+ALTER TABLE clientes ADD COLUMN IF NOT EXISTS soma_intervalos_dias BIGINT DEFAULT 0;
+
+-- Vizinhos de uma entrega (remoção/inserção fora das pontas) e recálculo completo
+CREATE INDEX IF NOT EXISTS idx_pedido_cliente_entrega ON pedidos(cliente_id, data_entrega);
+
+-- Backfill a partir dos pedidos já entregues
+WITH entregas AS (
+    SELECT cliente_id,
+           valor_total,
+           data_entrega,
+           LAG(data_entrega) OVER (PARTITION BY cliente_id ORDER BY data_entrega) AS entrega_anterior
+    FROM pedidos
+    WHERE data_entrega IS NOT NULL
+), agregados AS (
+    SELECT cliente_id,
+           COUNT(*) AS total,
+           SUM(valor_total) AS valor,
+           MIN(data_entrega) AS primeira,
+           MAX(data_entrega) AS ultima,
+           COALESCE(SUM(FLOOR(EXTRACT(EPOCH FROM (data_entrega - entrega_anterior)) / 86400)), 0) AS soma_intervalos
+    FROM entregas
+    GROUP BY cliente_id
+)
+UPDATE clientes c
+SET total_pedidos = a.total,
+    valor_total = a.valor,
+    ltv = a.valor,
+    ticket_medio = ROUND(a.valor / a.total, 2),
+    primeira_entrega = a.primeira,
+    ultima_entrega = a.ultima,
+    soma_intervalos_dias = a.soma_intervalos
+FROM agregados a
+WHERE a.cliente_id = c.id;
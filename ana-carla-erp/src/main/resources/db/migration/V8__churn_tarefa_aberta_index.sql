@@ -0,0 +1,5 @@
+-- V8__churn_tarefa_aberta_index.sql
+-- Apoia a deduplicação do alerta de churn (tarefa ALERTA_CHURN ainda aberta para o cliente)
+
+CREATE INDEX IF NOT EXISTS idx_tarefa_churn_aberta ON tarefas(cliente_id)
+    WHERE origem = 'ALERTA_CHURN' AND status IN ('PENDENTE', 'EM_ANDAMENTO');
@@ -0,0 +1,9 @@
+-- V9__create_scheduler_locks.sql
+-- Lock distribuído para jobs agendados (uma réplica executa cada disparo)
+
+CREATE TABLE scheduler_locks (
+    nome VARCHAR(100) PRIMARY KEY,
+    bloqueado_ate TIMESTAMP NOT NULL,
+    bloqueado_em TIMESTAMP NOT NULL,
+    bloqueado_por VARCHAR(255) NOT NULL
+);
@@ -12,7 +12,7 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 public abstract class BaseIntegrationTest {
 
     @Container
-    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+    protected static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
             .withDatabaseName("anacarla_test")
             .withUsername("test")
             .withPassword("test");
@@ -24,6 +24,9 @@ public abstract class BaseIntegrationTest {
         registry.add("spring.datasource.password", postgres::getPassword);
         registry.add("spring.flyway.enabled", () -> "true");
         registry.add("app.scheduling.churn-alert-enabled", () -> "false"); // Desabilitar scheduler nos testes
+        registry.add("app.scheduling.recencia-rfm-enabled", () -> "false");
+        registry.add("app.vendas.rollup.intervalo-ms", () -> "3600000"); // Consolidação chamada pelos testes
+        registry.add("app.sql.contador.cabecalho", () -> "true");
     }
 }
 
@@ -0,0 +1,191 @@
+package br.com.anacarla.erp.bench;
+
+import br.com.anacarla.erp.domain.UuidV7Generator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Inserção de chaves UUID v4 (aleatórias) x v7 (ordenadas no tempo) na tabela pedidos, no
+ * Postgres, com o schema das migrations (chave estrangeira para clientes e os índices
+ * secundários): vazão de inserção e tamanho final de cada índice. Cada chave usa um banco
+ * próprio, migrado do zero. Relatório JSON em target/bench/uuid-v7-insercao.json.
+ *
+ * Fora da suíte padrão (nome não termina em Test). Para executar:
+ * <pre>
+ * mvn test -Dtest=UuidV7InsercaoBenchmark -Dsurefire.failIfNoSpecifiedTests=false -Dbenchmark.linhas=1000000
+ * </pre>
+ */
+class UuidV7InsercaoBenchmark {
+
+    private static final int LINHAS = Integer.getInteger("benchmark.linhas", 1_000_000);
+    private static final int CLIENTES = 5000;
+    private static final int LOTE = 1000;
+    private static final String[] STATUS = {"RECEBIDO", "PREPARANDO", "PRONTO", "ENTREGUE", "CANCELADO"};
+    private static final String[] CANAIS = {"WHATSAPP", "WEB", "TELEFONE", "PRESENCIAL"};
+    private static final Path RELATORIO = Path.of(System.getProperty("benchmark.relatorio",
+            "target/bench/uuid-v7-insercao.json"));
+
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("anacarla_bench")
+            .withUsername("bench")
+            .withPassword("bench");
+
+    @BeforeAll
+    static void iniciar() {
+        postgres.start();
+    }
+
+    @AfterAll
+    static void encerrar() {
+        postgres.stop();
+    }
+
+    @Test
+    void deveCompararInsercaoEIndicesDeUuidV4eV7() throws Exception {
+        Map<String, Object> v4 = medir("bench_uuid_v4", UUID::randomUUID);
+        Map<String, Object> v7 = medir("bench_uuid_v7", UuidV7Generator::gerar);
+
+        Map<String, Object> relatorio = new LinkedHashMap<>();
+        relatorio.put("cenario", "uuid-v7-insercao");
+        relatorio.put("data", Instant.now().toString());
+        relatorio.put("linhas", LINHAS);
+        relatorio.put("clientes", CLIENTES);
+        relatorio.put("v4", v4);
+        relatorio.put("v7", v7);
+        Files.createDirectories(RELATORIO.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(RELATORIO.toFile(), relatorio);
+
+        // Inserção ordenada enche as páginas da árvore; a aleatória deixa páginas divididas pela metade
+        assertThat(indiceBytes(v7, "pedidos_pkey")).isLessThan(indiceBytes(v4, "pedidos_pkey"));
+    }
+
+    private static Map<String, Object> medir(String banco, Supplier<UUID> ids) throws Exception {
+        try (Connection admin = conectar(postgres.getDatabaseName());
+             Statement st = admin.createStatement()) {
+            st.execute("CREATE DATABASE " + banco);
+        }
+        Flyway.configure()
+                .dataSource(url(banco), postgres.getUsername(), postgres.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        try (Connection conexao = conectar(banco)) {
+            UUID[] clientes = inserirClientes(conexao);
+            conexao.setAutoCommit(false);
+
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            long inicio = System.nanoTime();
+            try (PreparedStatement ps = conexao.prepareStatement("""
+                    INSERT INTO pedidos (id, cliente_id, valor_total, status, canal, data_criacao, data_entrega, updated_at)
+                    VALUES (?, ?, ?, ?, ?, ?, ?, ?)""")) {
+                for (int i = 1; i <= LINHAS; i++) {
+                    String status = STATUS[aleatorio.nextInt(STATUS.length)];
+                    Timestamp agora = Timestamp.from(Instant.now());
+                    ps.setObject(1, ids.get());
+                    ps.setObject(2, clientes[aleatorio.nextInt(clientes.length)]);
+                    ps.setBigDecimal(3, BigDecimal.valueOf(aleatorio.nextInt(2000, 20000), 2));
+                    ps.setString(4, status);
+                    ps.setString(5, CANAIS[aleatorio.nextInt(CANAIS.length)]);
+                    ps.setTimestamp(6, agora);
+                    ps.setTimestamp(7, status.equals("ENTREGUE") ? agora : null);
+                    ps.setTimestamp(8, agora);
+                    ps.addBatch();
+                    if (i % LOTE == 0) {
+                        ps.executeBatch();
+                        conexao.commit();
+                    }
+                }
+                ps.executeBatch();
+                conexao.commit();
+            }
+            long duracaoMs = Math.max(1, (System.nanoTime() - inicio) / 1_000_000);
+            conexao.setAutoCommit(true);
+
+            Map<String, Object> resultado = new LinkedHashMap<>();
+            resultado.put("linhasPorSegundo", LINHAS * 1000L / duracaoMs);
+            resultado.put("tabelaMb", mb(tamanho(conexao, "SELECT pg_relation_size('pedidos')")));
+            resultado.put("indicesMb", mb(tamanho(conexao, "SELECT pg_indexes_size('pedidos')")));
+            resultado.put("indices", indices(conexao));
+            return resultado;
+        }
+    }
+
+    private static UUID[] inserirClientes(Connection conexao) throws Exception {
+        UUID[] clientes = new UUID[CLIENTES];
+        try (PreparedStatement ps = conexao.prepareStatement("INSERT INTO clientes (id, nome) VALUES (?, ?)")) {
+            for (int i = 0; i < CLIENTES; i++) {
+                clientes[i] = UuidV7Generator.gerar();
+                ps.setObject(1, clientes[i]);
+                ps.setString(2, "Cliente " + i);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        return clientes;
+    }
+
+    // Índice -> tamanho em bytes, maior primeiro
+    private static Map<String, Long> indices(Connection conexao) throws Exception {
+        Map<String, Long> indices = new LinkedHashMap<>();
+        try (Statement st = conexao.createStatement();
+             ResultSet rs = st.executeQuery("""
+                     SELECT indexrelid::regclass::text, pg_relation_size(indexrelid)
+                     FROM pg_index WHERE indrelid = 'pedidos'::regclass
+                     ORDER BY 2 DESC""")) {
+            while (rs.next()) {
+                indices.put(rs.getString(1), rs.getLong(2));
+            }
+        }
+        return indices;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long indiceBytes(Map<String, Object> resultado, String indice) {
+        return ((Map<String, Long>) resultado.get("indices")).get(indice);
+    }
+
+    private static long tamanho(Connection conexao, String sql) throws Exception {
+        try (Statement st = conexao.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static double mb(long bytes) {
+        return Math.round(bytes / 1048576.0 * 10) / 10.0;
+    }
+
+    private static Connection conectar(String banco) throws Exception {
+        return DriverManager.getConnection(url(banco) + "?reWriteBatchedInserts=true",
+                postgres.getUsername(), postgres.getPassword());
+    }
+
+    private static String url(String banco) {
+        return "jdbc:postgresql://%s:%d/%s".formatted(
+                postgres.getHost(), postgres.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT), banco);
+    }
+}
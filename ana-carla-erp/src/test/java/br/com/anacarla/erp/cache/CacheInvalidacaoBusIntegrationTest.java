@@ -0,0 +1,147 @@
+package br.com.anacarla.erp.cache;
+
+import br.com.anacarla.erp.AnaCarlaErpApplication;
+import br.com.anacarla.erp.BaseIntegrationTest;
+import br.com.anacarla.erp.domain.enums.CategoriaCardapio;
+import br.com.anacarla.erp.service.CardapioService;
+import br.com.anacarla.erp.web.dto.CardapioItemDTO;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Duas instâncias da aplicação (o contexto do teste e uma segunda réplica) no mesmo banco:
+ * remoções de cache em uma devem chegar à outra pelo LISTEN/NOTIFY.
+ */
+class CacheInvalidacaoBusIntegrationTest extends BaseIntegrationTest {
+
+    private static ConfigurableApplicationContext outraReplica;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CacheInvalidacaoBus invalidacaoBus;
+
+    @Autowired
+    private CardapioService cardapioService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeAll
+    static void iniciarOutraReplica() {
+        outraReplica = new SpringApplicationBuilder(AnaCarlaErpApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "app.scheduling.churn-alert-enabled=false",
+                        "app.scheduling.recencia-rfm-enabled=false")
+                .run();
+    }
+
+    @AfterAll
+    static void encerrarOutraReplica() {
+        if (outraReplica != null) {
+            outraReplica.close();
+        }
+    }
+
+    @Test
+    void deveInvalidarCardapioNaOutraReplicaAposEscrita() {
+        // Given - Listagem em cache nesta réplica
+        assertThat(invalidacaoBus.isAtivo()).isTrue();
+        cardapioService.listar(null);
+        Cache cardapio = cacheManager.getCache("cardapio");
+        assertThat(cardapio.get("all")).isNotNull();
+
+        // When - Item criado pela outra réplica
+        CardapioItemDTO criado = outraReplica.getBean(CardapioService.class).criar(CardapioItemDTO.builder()
+                .categoria(CategoriaCardapio.BEBIDA)
+                .nome("Suco de Cacau")
+                .preco(BigDecimal.valueOf(9.90))
+                .ativo(true)
+                .build());
+
+        // Then
+        try {
+            assertThat(aguardar(() -> cardapio.get("all") == null)).isTrue();
+            assertThat(cardapioService.listar(null))
+                    .extracting(CardapioItemDTO::getId)
+                    .contains(criado.getId());
+        } finally {
+            cardapioService.deletar(criado.getId());
+        }
+    }
+
+    @Test
+    void deveInvalidarChaveUuidNaOutraReplica() {
+        // Given
+        UUID clienteId = UUID.randomUUID();
+        Cache metricas = cacheManager.getCache("metricas");
+        metricas.put(clienteId, "valor");
+
+        // When
+        outraReplica.getBean(CacheManager.class).getCache("metricas").evict(clienteId);
+
+        // Then
+        assertThat(aguardar(() -> metricas.get(clienteId) == null)).isTrue();
+    }
+
+    @Test
+    void deveNotificarNaTransacaoSomenteNoCommit() throws Exception {
+        // Given - a mesma chave em cache na outra réplica
+        UUID clienteId = UUID.randomUUID();
+        Cache remoto = outraReplica.getBean(CacheManager.class).getCache("metricas");
+        remoto.put(clienteId, "valor");
+        Cache metricas = cacheManager.getCache("metricas");
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+
+        // When - remoção em uma transação desfeita
+        transacao.executeWithoutResult(status -> {
+            metricas.evict(clienteId);
+            status.setRollbackOnly();
+        });
+
+        // Then - nada chega à outra réplica
+        Thread.sleep(1000);
+        assertThat(remoto.get(clienteId)).isNotNull();
+
+        // When - remoção em uma transação confirmada
+        transacao.executeWithoutResult(status -> metricas.evict(clienteId));
+
+        // Then
+        assertThat(aguardar(() -> remoto.get(clienteId) == null)).isTrue();
+    }
+
+    private static boolean aguardar(BooleanSupplier condicao) {
+        long limite = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < limite) {
+            if (condicao.getAsBoolean()) {
+                return true;
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+}
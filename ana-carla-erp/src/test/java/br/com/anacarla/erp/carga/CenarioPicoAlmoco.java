@@ -0,0 +1,266 @@
+package br.com.anacarla.erp.carga;
+
+import br.com.anacarla.erp.AnaCarlaErpApplication;
+import br.com.anacarla.erp.domain.enums.CanalPedido;
+import br.com.anacarla.erp.domain.enums.StatusPedido;
+import br.com.anacarla.erp.web.dto.ClienteDTO;
+import br.com.anacarla.erp.web.dto.LoginRequest;
+import br.com.anacarla.erp.web.dto.PedidoDTO;
+import br.com.anacarla.erp.web.dto.PedidoItemDTO;
+import br.com.anacarla.erp.web.dto.UpdateStatusRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Cenário do pico do almoço contra uma instância da aplicação: usuários virtuais criam
+ * pedidos, levam cada um de RECEBIDO a ENTREGUE, acompanham o Kanban (com If-None-Match, como
+ * o front) e consultam clientes e métricas. Usado por {@link PicoAlmocoCarga} e
+ * {@link ThreadsVirtuaisCarga}.
+ */
+class CenarioPicoAlmoco {
+
+    private static final String[] NOMES = {"Ana", "Bruno", "Carla", "Daniel", "Eduarda", "Felipe", "Gabriela",
+            "Helena", "Igor", "Juliana", "Lucas", "Mariana", "Natália", "Otávio", "Paula", "Rafael"};
+    private static final String[] SOBRENOMES = {"Silva", "Souza", "Oliveira", "Santos", "Lima", "Costa", "Pereira"};
+    private static final String[] MARMITAS = {"Frango grelhado", "Carne de panela", "Tilápia", "Strogonoff",
+            "Bowl vegano", "Salada Caesar", "Suco natural"};
+
+    private final String baseUrl;
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper json = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private String token;
+    private final List<ClienteDTO> clientes = new ArrayList<>();
+
+    CenarioPicoAlmoco(String baseUrl) {
+        this.baseUrl = baseUrl.replaceAll("/+$", "");
+    }
+
+    /**
+     * Sobe a aplicação (porta aleatória) sobre o Postgres informado.
+     */
+    static ConfigurableApplicationContext subirAplicacao(PostgreSQLContainer<?> postgres, boolean threadsVirtuais,
+                                                         int poolConexoes) {
+        return new SpringApplicationBuilder(AnaCarlaErpApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + postgres.getJdbcUrl(),
+                "--spring.datasource.username=" + postgres.getUsername(),
+                "--spring.datasource.password=" + postgres.getPassword(),
+                "--app.scheduling.churn-alert-enabled=false",
+                "--app.scheduling.recencia-rfm-enabled=false",
+                "--spring.threads.virtual.enabled=" + threadsVirtuais,
+                "--spring.datasource.hikari.maximum-pool-size=" + poolConexoes,
+                "--logging.level.br.com.anacarla=WARN");
+    }
+
+    static String url(ConfigurableApplicationContext aplicacao) {
+        return "http://localhost:" + aplicacao.getEnvironment().getProperty("local.server.port");
+    }
+
+    /**
+     * Autentica, cadastra os clientes e roda os usuários virtuais; mede só após o aquecimento.
+     */
+    Resultado executar(int usuarios, int clientes, int aquecimentoSegundos, int duracaoSegundos) throws Exception {
+        token = json.readTree(enviar("POST", "/auth/login", new LoginRequest("admin@anacarla.com.br", "admin123"))
+                .body()).get("token").asText();
+        cadastrarClientes(clientes);
+
+        long inicio = System.nanoTime();
+        long fimAquecimento = inicio + aquecimentoSegundos * 1_000_000_000L;
+        long fim = fimAquecimento + duracaoSegundos * 1_000_000_000L;
+
+        RelatorioCarga.Medicoes medicoes = new RelatorioCarga.Medicoes();
+        ExecutorService executor = Executors.newFixedThreadPool(usuarios);
+        try {
+            List<Future<RelatorioCarga.Medicoes>> futuros = new ArrayList<>();
+            for (int i = 0; i < usuarios; i++) {
+                futuros.add(executor.submit(() -> usuarioVirtual(fimAquecimento, fim)));
+            }
+            for (Future<RelatorioCarga.Medicoes> futuro : futuros) {
+                medicoes.juntar(futuro.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return new Resultado(medicoes, (System.nanoTime() - fimAquecimento) / 1e9);
+    }
+
+    private void cadastrarClientes(int quantidade) throws IOException, InterruptedException {
+        String execucao = Long.toString(System.currentTimeMillis(), 36);
+        for (int i = 0; i < quantidade; i++) {
+            ClienteDTO cliente = ClienteDTO.builder()
+                    .nome(NOMES[i % NOMES.length] + " " + SOBRENOMES[i % SOBRENOMES.length] + " " + execucao + i)
+                    .email("carga." + execucao + "." + i + "@example.com")
+                    .build();
+            HttpResponse<String> resposta = enviar("POST", "/clientes", cliente);
+            if (resposta.statusCode() != 201) {
+                throw new IllegalStateException("Falha ao cadastrar cliente: " + resposta.statusCode() + " " + resposta.body());
+            }
+            clientes.add(json.readValue(resposta.body(), ClienteDTO.class));
+        }
+    }
+
+    /**
+     * Um atendente/cozinha: escolhe a próxima ação pelo mix do pico e só mede após o aquecimento.
+     */
+    private RelatorioCarga.Medicoes usuarioVirtual(long fimAquecimento, long fim) {
+        RelatorioCarga.Medicoes medicoes = new RelatorioCarga.Medicoes();
+        Deque<PedidoEmAndamento> emAndamento = new ArrayDeque<>();
+        String[] etagKanban = new String[1];
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+
+        while (System.nanoTime() < fim) {
+            int sorteio = aleatorio.nextInt(100);
+            String endpoint;
+            Acao acao;
+            if (sorteio < 25 || (sorteio < 55 && emAndamento.isEmpty())) {
+                endpoint = "POST /pedidos";
+                acao = () -> criarPedido(emAndamento);
+            } else if (sorteio < 55) {
+                endpoint = "PATCH /pedidos/{id}/status";
+                acao = () -> avancarPedido(emAndamento);
+            } else if (sorteio < 80) {
+                endpoint = "GET /pedidos/kanban";
+                acao = () -> consultarKanban(etagKanban);
+            } else if (sorteio < 92) {
+                endpoint = "GET /clientes/autocomplete";
+                acao = this::buscarClientes;
+            } else {
+                endpoint = "GET /clientes/{id}/metricas";
+                acao = this::abrirMetricas;
+            }
+
+            long inicio = System.nanoTime();
+            boolean sucesso;
+            try {
+                sucesso = acao.executar();
+            } catch (Exception e) {
+                sucesso = false;
+            }
+            if (inicio >= fimAquecimento) {
+                medicoes.registrar(endpoint, System.nanoTime() - inicio, !sucesso);
+            }
+        }
+        return medicoes;
+    }
+
+    private boolean criarPedido(Deque<PedidoEmAndamento> emAndamento) throws IOException, InterruptedException {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        List<PedidoItemDTO> itens = new ArrayList<>();
+        for (int i = aleatorio.nextInt(1, 4); i > 0; i--) {
+            itens.add(PedidoItemDTO.builder()
+                    .nome(MARMITAS[aleatorio.nextInt(MARMITAS.length)])
+                    .precoUnit(BigDecimal.valueOf(aleatorio.nextInt(1800, 4200), 2))
+                    .quantidade(aleatorio.nextInt(1, 3))
+                    .build());
+        }
+        PedidoDTO pedido = PedidoDTO.builder()
+                .clienteId(clienteAleatorio().getId())
+                .status(StatusPedido.RECEBIDO)
+                .canal(aleatorio.nextInt(10) < 7 ? CanalPedido.WHATSAPP : CanalPedido.TELEFONE)
+                .itens(itens)
+                .build();
+        HttpResponse<String> resposta = enviar("POST", "/pedidos", pedido);
+        boolean sucesso = resposta.statusCode() == 201;
+        if (sucesso) {
+            UUID id = UUID.fromString(json.readTree(resposta.body()).get("id").asText());
+            emAndamento.addLast(new PedidoEmAndamento(id, StatusPedido.RECEBIDO));
+        }
+        return sucesso;
+    }
+
+    // O pedido mais antigo da fila anda uma coluna; até ENTREGUE volta para o fim da fila
+    private boolean avancarPedido(Deque<PedidoEmAndamento> emAndamento) throws IOException, InterruptedException {
+        PedidoEmAndamento pedido = emAndamento.removeFirst();
+        StatusPedido proximo = StatusPedido.values()[pedido.status().ordinal() + 1];
+        HttpResponse<String> resposta = enviar("PATCH", "/pedidos/" + pedido.id() + "/status",
+                new UpdateStatusRequest(proximo));
+        boolean sucesso = resposta.statusCode() == 200;
+        if (sucesso && proximo != StatusPedido.ENTREGUE) {
+            emAndamento.addLast(new PedidoEmAndamento(pedido.id(), proximo));
+        }
+        return sucesso;
+    }
+
+    private boolean consultarKanban(String[] etag) throws IOException, InterruptedException {
+        HttpRequest.Builder requisicao = requisicao("/pedidos/kanban").GET();
+        if (etag[0] != null) {
+            requisicao.header("If-None-Match", etag[0]);
+        }
+        HttpResponse<String> resposta = http.send(requisicao.build(), HttpResponse.BodyHandlers.ofString());
+        resposta.headers().firstValue("ETag").ifPresent(valor -> etag[0] = valor);
+        return resposta.statusCode() == 200 || resposta.statusCode() == 304;
+    }
+
+    private boolean buscarClientes() throws IOException, InterruptedException {
+        String prefixo = clienteAleatorio().getNome().substring(0, 3);
+        HttpResponse<String> resposta = http.send(
+                requisicao("/clientes/autocomplete?q=" + URLEncoder.encode(prefixo, StandardCharsets.UTF_8)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        return resposta.statusCode() == 200;
+    }
+
+    private boolean abrirMetricas() throws IOException, InterruptedException {
+        HttpResponse<String> resposta = http.send(
+                requisicao("/clientes/" + clienteAleatorio().getId() + "/metricas").GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        return resposta.statusCode() == 200;
+    }
+
+    private ClienteDTO clienteAleatorio() {
+        return clientes.get(ThreadLocalRandom.current().nextInt(clientes.size()));
+    }
+
+    private HttpResponse<String> enviar(String metodo, String caminho, Object corpo) throws IOException, InterruptedException {
+        HttpRequest requisicao = requisicao(caminho)
+                .header("Content-Type", "application/json")
+                .method(metodo, HttpRequest.BodyPublishers.ofByteArray(json.writeValueAsBytes(corpo)))
+                .build();
+        return http.send(requisicao, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest.Builder requisicao(String caminho) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + caminho))
+                .timeout(Duration.ofSeconds(30));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    @FunctionalInterface
+    private interface Acao {
+        boolean executar() throws Exception;
+    }
+
+    private record PedidoEmAndamento(UUID id, StatusPedido status) {
+    }
+
+    record Resultado(RelatorioCarga.Medicoes medicoes, double segundos) {
+    }
+}
@@ -0,0 +1,103 @@
+package br.com.anacarla.erp.carga;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Simulação do pico do almoço ({@link CenarioPicoAlmoco}). Reporta vazão e latência
+ * p50/p95/p99 por endpoint e grava um relatório JSON.
+ *
+ * Fora da suíte padrão (nome não termina em Test). Sem carga.url sobe a aplicação com um
+ * Postgres em Testcontainers; com carga.url usa uma instância já em execução:
+ * <pre>
+ * mvn test -Dtest=PicoAlmocoCarga -Dsurefire.failIfNoSpecifiedTests=false \
+ *     -Dcarga.usuarios=20 -Dcarga.duracao=60 -Dcarga.base=relatorio-anterior.json
+ * </pre>
+ * Na aplicação embutida, carga.threadsVirtuais e carga.pool escolhem o modo de threads e o
+ * pool do Hikari; {@link ThreadsVirtuaisCarga} compara os dois modos numa execução só.
+ */
+@Slf4j
+class PicoAlmocoCarga {
+
+    private static final String URL = System.getProperty("carga.url");
+    private static final int USUARIOS = Integer.getInteger("carga.usuarios", 20);
+    private static final int DURACAO_SEGUNDOS = Integer.getInteger("carga.duracao", 60);
+    private static final int AQUECIMENTO_SEGUNDOS = Integer.getInteger("carga.aquecimento", 10);
+    private static final int CLIENTES = Integer.getInteger("carga.clientes", 200);
+    private static final Path RELATORIO = Path.of(System.getProperty("carga.relatorio", "target/carga/pico-almoco.json"));
+    private static final String BASE = System.getProperty("carga.base");
+    // Só na aplicação embutida: threads virtuais x de plataforma com o mesmo pool de conexões
+    private static final boolean THREADS_VIRTUAIS = Boolean.getBoolean("carga.threadsVirtuais");
+    private static final int POOL_CONEXOES = Integer.getInteger("carga.pool", 10);
+    static final double TAXA_MAXIMA_ERROS = 0.01;
+
+    private static PostgreSQLContainer<?> postgres;
+    private static ConfigurableApplicationContext aplicacao;
+    private static String baseUrl;
+
+    @BeforeAll
+    static void iniciar() {
+        if (URL != null) {
+            baseUrl = URL;
+            return;
+        }
+        postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+                .withDatabaseName("anacarla_carga")
+                .withUsername("carga")
+                .withPassword("carga");
+        postgres.start();
+        aplicacao = CenarioPicoAlmoco.subirAplicacao(postgres, THREADS_VIRTUAIS, POOL_CONEXOES);
+        baseUrl = CenarioPicoAlmoco.url(aplicacao);
+    }
+
+    @AfterAll
+    static void encerrar() {
+        if (aplicacao != null) {
+            aplicacao.close();
+        }
+        if (postgres != null) {
+            postgres.stop();
+        }
+    }
+
+    @Test
+    void deveSimularPicoDoAlmoco() throws Exception {
+        CenarioPicoAlmoco.Resultado resultado = new CenarioPicoAlmoco(baseUrl)
+                .executar(USUARIOS, CLIENTES, AQUECIMENTO_SEGUNDOS, DURACAO_SEGUNDOS);
+
+        Map<String, Object> execucao = new LinkedHashMap<>();
+        execucao.put("cenario", "pico-almoco");
+        execucao.put("data", Instant.now().toString());
+        execucao.put("alvo", URL != null ? baseUrl : "embutido (Postgres Testcontainers)");
+        execucao.put("usuariosVirtuais", USUARIOS);
+        execucao.put("clientes", CLIENTES);
+        execucao.put("aquecimentoSegundos", AQUECIMENTO_SEGUNDOS);
+        if (URL == null) {
+            execucao.put("threadsVirtuais", THREADS_VIRTUAIS);
+            execucao.put("poolConexoes", POOL_CONEXOES);
+        }
+        Map<String, Object> relatorio = RelatorioCarga.montar(execucao, resultado.medicoes(), resultado.segundos());
+        RelatorioCarga.gravar(relatorio, RELATORIO);
+
+        log.info("Pico do almoço{}", RelatorioCarga.tabela(relatorio));
+        log.info("Relatório: {}", RELATORIO.toAbsolutePath());
+        if (BASE != null) {
+            log.info("{}", RelatorioCarga.comparar(relatorio, Path.of(BASE)));
+        }
+
+        assertThat(RelatorioCarga.requisicoes(relatorio)).isPositive();
+        assertThat(RelatorioCarga.erros(relatorio))
+                .isLessThanOrEqualTo((long) (RelatorioCarga.requisicoes(relatorio) * TAXA_MAXIMA_ERROS));
+    }
+}
@@ -0,0 +1,190 @@
+package br.com.anacarla.erp.carga;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Latências coletadas por endpoint durante a carga, percentis e relatório JSON (comparável
+ * entre builds pelo mesmo formato).
+ */
+class RelatorioCarga {
+
+    private static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    /**
+     * Amostras de um usuário virtual; juntadas ao fim para não haver disputa entre threads.
+     */
+    static class Medicoes {
+
+        private final Map<String, Amostras> porEndpoint = new TreeMap<>();
+
+        void registrar(String endpoint, long nanos, boolean erro) {
+            Amostras amostras = porEndpoint.computeIfAbsent(endpoint, e -> new Amostras());
+            if (erro) {
+                amostras.erros++;
+            } else {
+                amostras.adicionar(nanos);
+            }
+        }
+
+        void juntar(Medicoes outras) {
+            outras.porEndpoint.forEach((endpoint, amostras) ->
+                    porEndpoint.computeIfAbsent(endpoint, e -> new Amostras()).juntar(amostras));
+        }
+    }
+
+    private static class Amostras {
+
+        private long[] nanos = new long[1024];
+        private int quantidade;
+        private long erros;
+
+        private void adicionar(long valor) {
+            if (quantidade == nanos.length) {
+                nanos = Arrays.copyOf(nanos, quantidade * 2);
+            }
+            nanos[quantidade++] = valor;
+        }
+
+        private void juntar(Amostras outras) {
+            for (int i = 0; i < outras.quantidade; i++) {
+                adicionar(outras.nanos[i]);
+            }
+            erros += outras.erros;
+        }
+
+        private Map<String, Object> resumo(double segundos) {
+            long[] ordenadas = Arrays.copyOf(nanos, quantidade);
+            Arrays.sort(ordenadas);
+            Map<String, Object> latencia = new LinkedHashMap<>();
+            latencia.put("p50", ms(percentil(ordenadas, 50)));
+            latencia.put("p95", ms(percentil(ordenadas, 95)));
+            latencia.put("p99", ms(percentil(ordenadas, 99)));
+            latencia.put("max", ms(quantidade > 0 ? ordenadas[quantidade - 1] : 0));
+            latencia.put("media", ms(quantidade > 0 ? Arrays.stream(ordenadas).sum() / quantidade : 0));
+
+            Map<String, Object> resumo = new LinkedHashMap<>();
+            resumo.put("requisicoes", quantidade + erros);
+            resumo.put("erros", erros);
+            resumo.put("porSegundo", arredondar((quantidade + erros) / segundos));
+            resumo.put("latenciaMs", latencia);
+            return resumo;
+        }
+
+        // Nearest-rank
+        private static long percentil(long[] ordenadas, double p) {
+            if (ordenadas.length == 0) {
+                return 0;
+            }
+            int indice = (int) Math.ceil(p / 100 * ordenadas.length) - 1;
+            return ordenadas[Math.max(0, indice)];
+        }
+    }
+
+    /**
+     * Monta o relatório: parâmetros da execução, total e um resumo por endpoint.
+     */
+    static Map<String, Object> montar(Map<String, Object> execucao, Medicoes medicoes, double segundos) {
+        Amostras total = new Amostras();
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        medicoes.porEndpoint.forEach((endpoint, amostras) -> {
+            endpoints.put(endpoint, amostras.resumo(segundos));
+            total.juntar(amostras);
+        });
+        Map<String, Object> relatorio = new LinkedHashMap<>(execucao);
+        relatorio.put("medicaoSegundos", arredondar(segundos));
+        relatorio.put("total", total.resumo(segundos));
+        relatorio.put("endpoints", endpoints);
+        return relatorio;
+    }
+
+    static void gravar(Map<String, Object> relatorio, Path arquivo) throws IOException {
+        if (arquivo.getParent() != null) {
+            Files.createDirectories(arquivo.getParent());
+        }
+        JSON.writeValue(arquivo.toFile(), relatorio);
+    }
+
+    static String tabela(Map<String, Object> relatorio) {
+        StringBuilder saida = new StringBuilder(String.format("%n%-30s %9s %7s %9s %9s %9s %9s%n",
+                "endpoint", "req", "erros", "req/s", "p50 ms", "p95 ms", "p99 ms"));
+        linhas(relatorio).forEach((endpoint, resumo) -> {
+            JsonNode latencia = resumo.get("latenciaMs");
+            saida.append(String.format("%-30s %9d %7d %9.1f %9.2f %9.2f %9.2f%n", endpoint,
+                    resumo.get("requisicoes").asLong(), resumo.get("erros").asLong(), resumo.get("porSegundo").asDouble(),
+                    latencia.get("p50").asDouble(), latencia.get("p95").asDouble(), latencia.get("p99").asDouble()));
+        });
+        return saida.toString();
+    }
+
+    /**
+     * Variação de vazão e de p95/p99 em relação a um relatório anterior (outra build).
+     */
+    static String comparar(Map<String, Object> relatorio, Path base) throws IOException {
+        return comparar(relatorio, JSON.readValue(base.toFile(), Map.class), base.toString());
+    }
+
+    /**
+     * Variação de vazão e de p95/p99 do relatório em relação à base.
+     */
+    static String comparar(Map<String, Object> relatorio, Map<?, ?> base, String nomeBase) {
+        Map<String, JsonNode> anteriores = linhas(base);
+        StringBuilder saida = new StringBuilder(String.format("%nComparação com %s%n%-30s %10s %10s %10s%n",
+                nomeBase, "endpoint", "req/s", "p95", "p99"));
+        linhas(relatorio).forEach((endpoint, atual) -> {
+            JsonNode anterior = anteriores.get(endpoint);
+            if (anterior == null) {
+                saida.append(String.format("%-30s %10s%n", endpoint, "novo"));
+                return;
+            }
+            saida.append(String.format("%-30s %10s %10s %10s%n", endpoint,
+                    variacao(anterior.get("porSegundo"), atual.get("porSegundo")),
+                    variacao(anterior.at("/latenciaMs/p95"), atual.at("/latenciaMs/p95")),
+                    variacao(anterior.at("/latenciaMs/p99"), atual.at("/latenciaMs/p99"))));
+        });
+        return saida.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    static long requisicoes(Map<String, Object> relatorio) {
+        return (long) ((Map<String, Object>) relatorio.get("total")).get("requisicoes");
+    }
+
+    @SuppressWarnings("unchecked")
+    static long erros(Map<String, Object> relatorio) {
+        return (long) ((Map<String, Object>) relatorio.get("total")).get("erros");
+    }
+
+    private static Map<String, JsonNode> linhas(Map<?, ?> relatorio) {
+        JsonNode arvore = JSON.valueToTree(relatorio);
+        Map<String, JsonNode> linhas = new LinkedHashMap<>();
+        linhas.put("TOTAL", arvore.get("total"));
+        arvore.get("endpoints").fields().forEachRemaining(e -> linhas.put(e.getKey(), e.getValue()));
+        return linhas;
+    }
+
+    private static String variacao(JsonNode anterior, JsonNode atual) {
+        double antes = anterior.asDouble();
+        if (antes == 0) {
+            return "-";
+        }
+        return String.format("%+.1f%%", (atual.asDouble() - antes) * 100 / antes);
+    }
+
+    private static double ms(long nanos) {
+        return arredondar(nanos / 1_000_000.0);
+    }
+
+    private static double arredondar(double valor) {
+        return Math.round(valor * 100) / 100.0;
+    }
+}
@@ -0,0 +1,90 @@
+package br.com.anacarla.erp.carga;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Threads de plataforma x threads virtuais no pico do almoço, com o mesmo pool do Hikari:
+ * duas execuções do {@link CenarioPicoAlmoco}, cada uma com aplicação e Postgres novos, e um
+ * relatório com as duas e a variação da segunda em relação à primeira. Mais usuários que
+ * threads do Tomcat (200) para o modo de plataforma enfileirar requisições.
+ *
+ * Fora da suíte padrão (nome não termina em Test). Para executar:
+ * <pre>
+ * mvn test -Dtest=ThreadsVirtuaisCarga -Dsurefire.failIfNoSpecifiedTests=false \
+ *     -Dcarga.usuarios=400 -Dcarga.pool=10 -Dcarga.duracao=60
+ * </pre>
+ */
+@Slf4j
+class ThreadsVirtuaisCarga {
+
+    private static final int USUARIOS = Integer.getInteger("carga.usuarios", 300);
+    private static final int DURACAO_SEGUNDOS = Integer.getInteger("carga.duracao", 60);
+    private static final int AQUECIMENTO_SEGUNDOS = Integer.getInteger("carga.aquecimento", 10);
+    private static final int CLIENTES = Integer.getInteger("carga.clientes", 200);
+    private static final int POOL_CONEXOES = Integer.getInteger("carga.pool", 10);
+    private static final Path RELATORIO = Path.of(System.getProperty("carga.relatorio", "target/carga/threads-virtuais.json"));
+
+    @Test
+    void deveCompararThreadsDePlataformaEVirtuais() throws Exception {
+        Map<String, Object> plataforma = executar(false);
+        Map<String, Object> virtuais = executar(true);
+
+        Map<String, Object> relatorio = new LinkedHashMap<>();
+        relatorio.put("cenario", "threads-virtuais");
+        relatorio.put("data", Instant.now().toString());
+        relatorio.put("usuariosVirtuais", USUARIOS);
+        relatorio.put("clientes", CLIENTES);
+        relatorio.put("poolConexoes", POOL_CONEXOES);
+        relatorio.put("plataforma", plataforma);
+        relatorio.put("virtuais", virtuais);
+        RelatorioCarga.gravar(relatorio, RELATORIO);
+
+        log.info("Threads de plataforma{}", RelatorioCarga.tabela(plataforma));
+        log.info("Threads virtuais{}", RelatorioCarga.tabela(virtuais));
+        log.info("{}", RelatorioCarga.comparar(virtuais, plataforma, "threads de plataforma"));
+        log.info("Pinagens acima do limite (threads virtuais): {}", virtuais.get("pinagens"));
+        log.info("Relatório: {}", RELATORIO.toAbsolutePath());
+
+        for (Map<String, Object> execucao : List.of(plataforma, virtuais)) {
+            assertThat(RelatorioCarga.requisicoes(execucao)).isPositive();
+            assertThat(RelatorioCarga.erros(execucao))
+                    .isLessThanOrEqualTo((long) (RelatorioCarga.requisicoes(execucao) * PicoAlmocoCarga.TAXA_MAXIMA_ERROS));
+        }
+    }
+
+    private static Map<String, Object> executar(boolean threadsVirtuais) throws Exception {
+        try (PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+                .withDatabaseName("anacarla_carga")
+                .withUsername("carga")
+                .withPassword("carga")) {
+            postgres.start();
+            try (ConfigurableApplicationContext aplicacao =
+                         CenarioPicoAlmoco.subirAplicacao(postgres, threadsVirtuais, POOL_CONEXOES)) {
+                CenarioPicoAlmoco.Resultado resultado = new CenarioPicoAlmoco(CenarioPicoAlmoco.url(aplicacao))
+                        .executar(USUARIOS, CLIENTES, AQUECIMENTO_SEGUNDOS, DURACAO_SEGUNDOS);
+
+                Map<String, Object> execucao = new LinkedHashMap<>();
+                execucao.put("threadsVirtuais", threadsVirtuais);
+                execucao.put("aquecimentoSegundos", AQUECIMENTO_SEGUNDOS);
+                if (threadsVirtuais) {
+                    Timer pinagens = aplicacao.getBean(MeterRegistry.class).find("jvm.threads.virtual.pinagem").timer();
+                    execucao.put("pinagens", pinagens != null ? pinagens.count() : 0L);
+                }
+                return RelatorioCarga.montar(execucao, resultado.medicoes(), resultado.segundos());
+            }
+        }
+    }
+}
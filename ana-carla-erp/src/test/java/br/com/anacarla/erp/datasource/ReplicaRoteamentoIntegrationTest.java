@@ -0,0 +1,248 @@
+package br.com.anacarla.erp.datasource;
+
+import br.com.anacarla.erp.BaseIntegrationTest;
+import br.com.anacarla.erp.service.CardapioWhatsAppFormatter;
+import br.com.anacarla.erp.service.ClienteAutocompleteIndex;
+import br.com.anacarla.erp.service.ClienteService;
+import br.com.anacarla.erp.service.ProducaoCozinha;
+import br.com.anacarla.erp.web.dto.ClienteDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+
+/**
+ * Roteamento para a réplica com o mesmo Postgres atrás de dois pools: a réplica se conecta
+ * com application_name "replica", o que identifica o pool que atendeu cada transação.
+ */
+class ReplicaRoteamentoIntegrationTest extends BaseIntegrationTest {
+
+    private static final String CONSULTA_POOL = "SELECT current_setting('application_name')";
+
+    @DynamicPropertySource
+    static void configurarReplica(DynamicPropertyRegistry registry) {
+        registry.add("app.datasource.replica.enabled", () -> "true");
+        registry.add("app.datasource.replica.url", () -> postgres.getJdbcUrl()
+                + (postgres.getJdbcUrl().contains("?") ? "&" : "?") + "ApplicationName=replica");
+        registry.add("app.datasource.replica.username", postgres::getUsername);
+        registry.add("app.datasource.replica.password", postgres::getPassword);
+    }
+
+    @TestConfiguration
+    static class Configuracao {
+
+        @Bean
+        LeituraMarcada leituraMarcada(JdbcTemplate jdbcTemplate) {
+            return new LeituraMarcada(jdbcTemplate);
+        }
+    }
+
+    static class LeituraMarcada {
+
+        private final JdbcTemplate jdbcTemplate;
+
+        LeituraMarcada(JdbcTemplate jdbcTemplate) {
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        @Transactional(readOnly = true)
+        @LeituraNoPrimario
+        public String pool() {
+            return jdbcTemplate.queryForObject(CONSULTA_POOL, String.class);
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReplicaMonitor replicaMonitor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    @Qualifier("primarioDataSource")
+    private DataSource primario;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replica;
+
+    @Autowired
+    private LeituraMarcada leituraMarcada;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ClienteService clienteService;
+
+    @Autowired
+    private CardapioWhatsAppFormatter cardapioWhatsAppFormatter;
+
+    @Autowired
+    private ProducaoCozinha producaoCozinha;
+
+    @Autowired
+    private ClienteAutocompleteIndex clienteAutocompleteIndex;
+
+    @Test
+    void deveEnviarSomenteLeituraParaReplicaEEscritasParaPrimario() {
+        assertThat(replicaMonitor.isDisponivel()).isTrue();
+
+        assertThat(pool(true)).isEqualTo("replica");
+        assertThat(pool(false)).isNotEqualTo("replica");
+        // Fora de transação: primário
+        assertThat(jdbcTemplate.queryForObject(CONSULTA_POOL, String.class)).isNotEqualTo("replica");
+    }
+
+    @Test
+    void deveRotearCadaTransacaoDaRequisicaoComOpenInView() {
+        // Given - EntityManager aberto para a requisição inteira, como no OpenEntityManagerInViewInterceptor
+        EntityManagerHolder holder = new EntityManagerHolder(entityManagerFactory.createEntityManager());
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, holder);
+        try {
+            // When / Then - a escrita depois de uma leitura não herda a conexão da réplica
+            assertThat(pool(true)).isEqualTo("replica");
+            assertThat(pool(false)).isNotEqualTo("replica");
+            assertThat(pool(true)).isEqualTo("replica");
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            holder.getEntityManager().close();
+        }
+    }
+
+    @Test
+    void deveLerNoPrimarioEmMetodoMarcadoComReplicaDisponivel() {
+        assertThat(replicaMonitor.isDisponivel()).isTrue();
+
+        assertThat(leituraMarcada.pool()).isNotEqualTo("replica");
+        // A marca vale só durante o método
+        assertThat(pool(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void deveLerNoPrimarioAoPreencherCachesEReconstruirAgregados() {
+        // Given
+        ClienteDTO cliente = clienteService.criar(ClienteDTO.builder()
+                .nome("Cliente Réplica")
+                .email("replica@example.com")
+                .build());
+        cacheManager.getCache("cardapio").clear();
+        try {
+            double replicaAntes = conexoes("replica");
+            double primarioAntes = conexoes("primario");
+
+            // When - leituras que ficam guardadas em cache ou em memória
+            clienteService.obterMetricas(cliente.getId());
+            cardapioWhatsAppFormatter.textoWhatsApp();
+            producaoCozinha.reconstruir();
+            clienteAutocompleteIndex.reconstruir();
+
+            // Then
+            assertThat(conexoes("replica")).isEqualTo(replicaAntes);
+            assertThat(conexoes("primario")).isGreaterThanOrEqualTo(primarioAntes + 4);
+        } finally {
+            clienteService.deletar(cliente.getId());
+        }
+    }
+
+    @Test
+    void deveVoltarAoPrimarioComReplicaAtrasada() {
+        // Given - limite abaixo de qualquer atraso medido (o container não é réplica: atraso 0)
+        ReplicaMonitor atrasada = new ReplicaMonitor(replica, ReplicaMonitor.CONSULTA_LAG_POSTGRES, -1,
+                new SimpleMeterRegistry());
+        ReplicaMonitor emDia = new ReplicaMonitor(replica, ReplicaMonitor.CONSULTA_LAG_POSTGRES, 5000,
+                new SimpleMeterRegistry());
+
+        // When
+        atrasada.verificar();
+        emDia.verificar();
+
+        // Then
+        assertThat(atrasada.isDisponivel()).isFalse();
+        assertThat(atrasada.getLagMs()).isZero();
+        assertThat(poolSomenteLeitura(atrasada)).isNotEqualTo("replica");
+        assertThat(emDia.isDisponivel()).isTrue();
+        assertThat(poolSomenteLeitura(emDia)).isEqualTo("replica");
+    }
+
+    @Test
+    void deveVoltarAoPrimarioComReplicaForaDoAr() {
+        // Given - porta sem servidor: a conexão é recusada
+        DriverManagerDataSource foraDoAr = new DriverManagerDataSource(
+                "jdbc:postgresql://localhost:1/anacarla?connectTimeout=1", "replica", "replica");
+        ReplicaMonitor monitor = new ReplicaMonitor(foraDoAr, ReplicaMonitor.CONSULTA_LAG_POSTGRES, 5000,
+                new SimpleMeterRegistry());
+
+        // When / Then - a falha fica no monitor, sem propagar para o agendador
+        assertThatNoException().isThrownBy(monitor::verificar);
+        assertThat(monitor.isDisponivel()).isFalse();
+        assertThat(monitor.getLagMs()).isEqualTo(-1);
+        assertThat(poolSomenteLeitura(monitor, foraDoAr)).isNotEqualTo("replica");
+    }
+
+    @Test
+    void devePublicarMetricasPorPool() {
+        pool(true);
+        pool(false);
+
+        assertThat(meterRegistry.find("hikaricp.connections").tag("pool", "primario").gauge()).isNotNull();
+        assertThat(meterRegistry.find("hikaricp.connections").tag("pool", "replica").gauge()).isNotNull();
+        assertThat(conexoes("replica")).isPositive();
+        assertThat(meterRegistry.get("datasource.replica.lag").gauge().value()).isZero();
+    }
+
+    private String pool(boolean somenteLeitura) {
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+        transacao.setReadOnly(somenteLeitura);
+        return transacao.execute(status -> jdbcTemplate.queryForObject(CONSULTA_POOL, String.class));
+    }
+
+    private String poolSomenteLeitura(ReplicaMonitor monitor) {
+        return poolSomenteLeitura(monitor, replica);
+    }
+
+    // Roteamento próprio com o monitor informado, sobre os mesmos pools do contexto
+    private String poolSomenteLeitura(ReplicaMonitor monitor, DataSource replicaRoteada) {
+        RoteamentoDataSource roteamento = new RoteamentoDataSource(primario, replicaRoteada, monitor,
+                new SimpleMeterRegistry());
+        roteamento.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(roteamento);
+        TransactionTemplate transacao = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transacao.setReadOnly(true);
+        return transacao.execute(status -> new JdbcTemplate(dataSource).queryForObject(CONSULTA_POOL, String.class));
+    }
+
+    private double conexoes(String destino) {
+        return meterRegistry.get("datasource.roteamento.conexoes").tag("destino", destino).counter().count();
+    }
+}
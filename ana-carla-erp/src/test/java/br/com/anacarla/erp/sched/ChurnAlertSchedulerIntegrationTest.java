@@ -0,0 +1,128 @@
+package br.com.anacarla.erp.sched;
+
+import br.com.anacarla.erp.BaseIntegrationTest;
+import br.com.anacarla.erp.service.ClienteService;
+import br.com.anacarla.erp.sql.ContadorSqlExtension;
+import br.com.anacarla.erp.web.dto.ClienteDTO;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Transactional
+class ChurnAlertSchedulerIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private ChurnAlertScheduler churnAlertScheduler;
+
+    @Autowired
+    private ClienteService clienteService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @RegisterExtension
+    ContadorSqlExtension sql = new ContadorSqlExtension();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(churnAlertScheduler, "churnAlertEnabled", true);
+        ReflectionTestUtils.setField(churnAlertScheduler, "churnChunkSize", 2);
+    }
+
+    @Test
+    void deveCriarUmaTarefaPorClienteEmLotesSemDuplicar() {
+        // Given - 3 clientes em risco, mais que um lote
+        for (int i = 0; i < 3; i++) {
+            ClienteDTO cliente = clienteService.criar(ClienteDTO.builder()
+                    .nome("Cliente Sumido " + i)
+                    .email("sumido" + i + "@example.com")
+                    .build());
+            entityManager.flush();
+            jdbcTemplate.update("UPDATE clientes SET recencia_dias = 500 WHERE id = ?", cliente.getId());
+        }
+
+        // When - duas execuções seguidas (liberando o lock do job entre elas)
+        churnAlertScheduler.verificarClientesEmRisco();
+        jdbcTemplate.update("DELETE FROM scheduler_locks");
+        churnAlertScheduler.verificarClientesEmRisco();
+
+        // Then
+        Integer tarefas = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM tarefas t JOIN clientes c ON c.id = t.cliente_id " +
+                "WHERE t.origem = 'ALERTA_CHURN' AND c.nome LIKE 'Cliente Sumido %'", Integer.class);
+        assertThat(tarefas).isEqualTo(3);
+        List<UUID> duplicados = jdbcTemplate.queryForList(
+                "SELECT cliente_id FROM tarefas WHERE origem = 'ALERTA_CHURN' " +
+                "GROUP BY cliente_id HAVING COUNT(*) > 1", UUID.class);
+        assertThat(duplicados).isEmpty();
+    }
+
+    @Test
+    void naoDeveEmitirUmStatementPorClienteDoLote() {
+        // Given - um único lote nas duas execuções
+        ReflectionTestUtils.setField(churnAlertScheduler, "churnChunkSize", 1000);
+        criarClientesEmRisco(0, 2);
+
+        // When - a mesma verificação com 2 e com 10 clientes em risco
+        int comDois = verificarEContarStatements();
+        jdbcTemplate.update("DELETE FROM tarefas WHERE origem = 'ALERTA_CHURN'");
+        criarClientesEmRisco(2, 8);
+        int comDez = verificarEContarStatements();
+
+        // Then - busca paginada e inserção em lote: o custo não cresce com o lote
+        assertThat(comDez).isEqualTo(comDois);
+    }
+
+    @Test
+    void naoDeveExecutarQuandoOutroNoDetemOLock() {
+        // Given
+        ClienteDTO cliente = clienteService.criar(ClienteDTO.builder()
+                .nome("Cliente Sumido Lock")
+                .email("sumido.lock@example.com")
+                .build());
+        entityManager.flush();
+        jdbcTemplate.update("UPDATE clientes SET recencia_dias = 500 WHERE id = ?", cliente.getId());
+        jdbcTemplate.update("INSERT INTO scheduler_locks (nome, bloqueado_ate, bloqueado_em, bloqueado_por) " +
+                "VALUES ('churn-alert', (NOW() AT TIME ZONE 'UTC') + INTERVAL '10 minutes', " +
+                "NOW() AT TIME ZONE 'UTC', 'outro-no')");
+
+        // When
+        churnAlertScheduler.verificarClientesEmRisco();
+
+        // Then
+        Integer tarefas = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM tarefas WHERE cliente_id = ?", Integer.class, cliente.getId());
+        assertThat(tarefas).isZero();
+    }
+
+    private void criarClientesEmRisco(int inicio, int quantidade) {
+        for (int i = inicio; i < inicio + quantidade; i++) {
+            ClienteDTO cliente = clienteService.criar(ClienteDTO.builder()
+                    .nome("Cliente Lote " + i)
+                    .email("lote" + i + "@example.com")
+                    .build());
+            entityManager.flush();
+            jdbcTemplate.update("UPDATE clientes SET recencia_dias = 500 WHERE id = ?", cliente.getId());
+        }
+    }
+
+    private int verificarEContarStatements() {
+        jdbcTemplate.update("DELETE FROM scheduler_locks");
+        sql.zerar();
+        churnAlertScheduler.verificarClientesEmRisco();
+        return sql.getStatements();
+    }
+}
@@ -3,6 +3,7 @@ package br.com.anacarla.erp.service;
 import br.com.anacarla.erp.BaseIntegrationTest;
 import br.com.anacarla.erp.domain.enums.CategoriaCardapio;
 import br.com.anacarla.erp.web.dto.CardapioItemDTO;
+import br.com.anacarla.erp.web.dto.CardapioWhatsAppTextoDTO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -98,5 +99,26 @@ class CardapioWhatsAppFormatterTest extends BaseIntegrationTest {
         // Then
         assertThat(texto).isEqualTo("Cardápio não disponível no momento.");
     }
-}
 
+    @Test
+    void deveReutilizarTextoEmCacheAteOCardapioMudar() {
+        // Given
+        CardapioWhatsAppTextoDTO primeiro = formatter.textoWhatsApp();
+
+        // When
+        CardapioWhatsAppTextoDTO repetido = formatter.textoWhatsApp();
+        cardapioService.criar(CardapioItemDTO.builder()
+                .categoria(CategoriaCardapio.BEBIDA)
+                .nome("Suco Natural")
+                .preco(BigDecimal.valueOf(7.00))
+                .ativo(true)
+                .ordem(1)
+                .build());
+        CardapioWhatsAppTextoDTO aposMudanca = formatter.textoWhatsApp();
+
+        // Then
+        assertThat(repetido).isSameAs(primeiro);
+        assertThat(aposMudanca.getTexto()).contains("Suco Natural");
+        assertThat(aposMudanca.getEtag()).isNotEqualTo(primeiro.getEtag());
+    }
+}
@@ -0,0 +1,129 @@
+package br.com.anacarla.erp.service;
+
+import br.com.anacarla.erp.BaseIntegrationTest;
+import br.com.anacarla.erp.domain.enums.CanalPedido;
+import br.com.anacarla.erp.domain.enums.StatusPedido;
+import br.com.anacarla.erp.web.dto.ClienteDTO;
+import br.com.anacarla.erp.web.dto.ClienteMetricasDTO;
+import br.com.anacarla.erp.web.dto.PedidoDTO;
+import br.com.anacarla.erp.web.dto.PedidoItemDTO;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Transactional
+class ClienteMetricasServiceIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private ClienteMetricasService clienteMetricasService;
+
+    @Autowired
+    private ClienteService clienteService;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    void deveAtualizarRecenciaERfmEmLote() {
+        // Given - Cliente com uma entrega há 40 dias
+        ClienteDTO cliente = clienteService.criar(ClienteDTO.builder()
+                .nome("Cliente Antigo")
+                .email("antigo@example.com")
+                .build());
+        PedidoDTO pedido = pedidoService.criar(PedidoDTO.builder()
+                .clienteId(cliente.getId())
+                .canal(CanalPedido.WHATSAPP)
+                .status(StatusPedido.RECEBIDO)
+                .itens(List.of(PedidoItemDTO.builder()
+                        .nome("Bowl")
+                        .precoUnit(BigDecimal.valueOf(30.00))
+                        .quantidade(1)
+                        .build()))
+                .build());
+        pedidoService.atualizarStatus(pedido.getId(), StatusPedido.ENTREGUE);
+        entityManager.flush();
+        jdbcTemplate.update("UPDATE clientes SET ultima_compra = (NOW() AT TIME ZONE 'UTC') - INTERVAL '40 days' " +
+                "WHERE id = ?", cliente.getId());
+
+        // When
+        int alterados = clienteMetricasService.atualizarRecenciaERfmEmLote();
+
+        // Then
+        assertThat(alterados).isGreaterThanOrEqualTo(2);
+        Integer recencia = jdbcTemplate.queryForObject(
+                "SELECT recencia_dias FROM clientes WHERE id = ?", Integer.class, cliente.getId());
+        String rfm = jdbcTemplate.queryForObject(
+                "SELECT rfm::text FROM clientes WHERE id = ?", String.class, cliente.getId());
+        assertThat(recencia).isEqualTo(40);
+        assertThat(rfm).contains("\"R\": 2").contains("\"cluster\": \"PERDIDO\"");
+    }
+
+    @Test
+    void naoDeveAlterarLinhasQuandoNadaMudou() {
+        // Given
+        clienteMetricasService.atualizarRecenciaERfmEmLote();
+
+        // When
+        int alterados = clienteMetricasService.atualizarRecenciaERfmEmLote();
+
+        // Then
+        assertThat(alterados).isZero();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void deveInvalidarCacheDeMetricasQuandoEntregaEConfirmada() {
+        // Given - Métricas lidas fora de transação ficam no cache
+        ClienteDTO cliente = clienteService.criar(ClienteDTO.builder()
+                .nome("Cliente Cache")
+                .email("cache@example.com")
+                .build());
+        try {
+            assertThat(clienteService.obterMetricas(cliente.getId())).isNotNull();
+            assertThat(cacheManager.getCache("metricas").get(cliente.getId())).isNotNull();
+
+            // When
+            PedidoDTO pedido = pedidoService.criar(PedidoDTO.builder()
+                    .clienteId(cliente.getId())
+                    .canal(CanalPedido.WHATSAPP)
+                    .status(StatusPedido.RECEBIDO)
+                    .itens(List.of(PedidoItemDTO.builder()
+                            .nome("Bowl")
+                            .precoUnit(BigDecimal.valueOf(30.00))
+                            .quantidade(1)
+                            .build()))
+                    .build());
+            pedidoService.atualizarStatus(pedido.getId(), StatusPedido.ENTREGUE);
+
+            // Then
+            assertThat(cacheManager.getCache("metricas").get(cliente.getId())).isNull();
+            ClienteMetricasDTO metricas = clienteService.obterMetricas(cliente.getId());
+            assertThat(metricas.getTotalPedidos()).isEqualTo(1);
+            assertThat(metricas.getValorTotal()).isEqualByComparingTo(BigDecimal.valueOf(30.00));
+        } finally {
+            // Pelo serviço, para manter o rollup de vendas consistente
+            jdbcTemplate.queryForList("SELECT id FROM pedidos WHERE cliente_id = ?", UUID.class, cliente.getId())
+                    .forEach(pedidoService::deletar);
+            clienteService.deletar(cliente.getId());
+        }
+    }
+}
@@ -1,14 +1,27 @@
 package br.com.anacarla.erp.service;
 
 import br.com.anacarla.erp.BaseIntegrationTest;
+import br.com.anacarla.erp.repository.ClienteRepository;
+import br.com.anacarla.erp.web.dto.ClienteAutocompleteDTO;
 import br.com.anacarla.erp.web.dto.ClienteDTO;
 import br.com.anacarla.erp.web.dto.ClienteMetricasDTO;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -19,6 +32,18 @@ class ClienteServiceIntegrationTest extends BaseIntegrationTest {
     @Autowired
     private ClienteService clienteService;
 
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Test
     void deveCriarCliente() {
         // Given
@@ -130,5 +155,180 @@ class ClienteServiceIntegrationTest extends BaseIntegrationTest {
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("Cliente não encontrado");
     }
-}
 
+    @Test
+    void deveBuscarSemAcentoEPorTelefoneFormatado() {
+        // Given
+        ClienteDTO criado = clienteService.criar(ClienteDTO.builder()
+                .nome("João Acentuação")
+                .email("joao.acento@example.com")
+                .telefones("(11) 98765-4321")
+                .build());
+
+        // When
+        Page<ClienteDTO> porNome = clienteService.buscar("JOAO acentuacao", PageRequest.of(0, 10));
+        Page<ClienteDTO> porTelefone = clienteService.buscar("98765 43", PageRequest.of(0, 10));
+
+        // Then
+        assertThat(porNome.getContent()).extracting(ClienteDTO::getId).contains(criado.getId());
+        assertThat(porTelefone.getContent()).extracting(ClienteDTO::getId).contains(criado.getId());
+    }
+
+    @Test
+    void deveBuscarCuringasComoTextoECadaTelefoneSeparado() {
+        // Given
+        ClienteDTO criado = clienteService.criar(ClienteDTO.builder()
+                .nome("Empório 100% Natural")
+                .telefones("(11) 8765-4321, (21) 3333-4444")
+                .build());
+
+        // When/Then - % e _ casam só com o próprio caractere
+        assertThat(idsDaBusca("100% natural")).contains(criado.getId());
+        assertThat(idsDaBusca("emporio%natural")).doesNotContain(criado.getId());
+        assertThat(idsDaBusca("emporio_100")).doesNotContain(criado.getId());
+
+        // Final de um número + início do outro não é telefone do cliente
+        assertThat(idsDaBusca("4321 2133")).doesNotContain(criado.getId());
+        assertThat(idsDaBusca("2133334444")).contains(criado.getId());
+    }
+
+    @Test
+    void devePercorrerApenasClientesQueCasamComABusca() {
+        // Given
+        ClienteDTO ana = clienteService.criar(ClienteDTO.builder()
+                .nome("Ana Streaming")
+                .email("ana.streaming@example.com")
+                .build());
+        clienteService.criar(ClienteDTO.builder()
+                .nome("Bruno Outro")
+                .email("bruno.outro@example.com")
+                .build());
+
+        // When
+        List<ClienteDTO> encontrados = new ArrayList<>();
+        clienteService.percorrerTodos("ana streaming", encontrados::add);
+
+        // Then
+        assertThat(encontrados).extracting(ClienteDTO::getId).containsExactly(ana.getId());
+    }
+
+    @Test
+    void deveSugerirClientesPorPrefixoOrdenadosPelaCompraMaisRecente() {
+        // Given
+        ClienteDTO antigo = clienteService.criar(ClienteDTO.builder()
+                .nome("Joana Prefixo")
+                .telefones("+55 (11) 91234-5678")
+                .build());
+        ClienteDTO recente = clienteService.criar(ClienteDTO.builder()
+                .nome("Joãozinho Prefixo")
+                .build());
+        entityManager.flush();
+        jdbcTemplate.update("UPDATE clientes SET ultima_compra = (NOW() AT TIME ZONE 'UTC') - INTERVAL '30 days' WHERE id = ?",
+                antigo.getId());
+        jdbcTemplate.update("UPDATE clientes SET ultima_compra = (NOW() AT TIME ZONE 'UTC') - INTERVAL '1 day' WHERE id = ?",
+                recente.getId());
+        // Índice próprio: a reconstrução lê dados que o rollback do teste descarta
+        ClienteAutocompleteIndex indice = new ClienteAutocompleteIndex(clienteRepository);
+        indice.reconstruir();
+
+        // When
+        List<ClienteAutocompleteDTO> porNome = indice.buscar("jo prefix", 10);
+        List<ClienteAutocompleteDTO> porTelefone = indice.buscar("91234", 10);
+
+        // Then
+        assertThat(porNome).extracting(ClienteAutocompleteDTO::getId)
+                .containsSubsequence(recente.getId(), antigo.getId());
+        assertThat(porTelefone).extracting(ClienteAutocompleteDTO::getId).containsExactly(antigo.getId());
+    }
+
+    @Test
+    void deveEncontrarClientePorTelefoneEmQualquerFormato() {
+        // Given - celular antigo de 8 dígitos e fixo com DDI
+        ClienteDTO criado = clienteService.criar(ClienteDTO.builder()
+                .nome("Cliente Telefone")
+                .telefones("(11) 8765-4321, +55 21 3333-4444")
+                .build());
+
+        // When/Then
+        assertThat(clienteService.encontrarIdPorTelefone("5511987654321")).contains(criado.getId());
+        assertThat(clienteService.encontrarIdPorTelefone("+55 11 8765-4321")).contains(criado.getId());
+        assertThat(clienteService.encontrarIdPorTelefone("(21) 3333-4444")).contains(criado.getId());
+        assertThat(clienteService.encontrarIdPorTelefone("11 91111-2222")).isEmpty();
+    }
+
+    @Test
+    void naoDeveCadastrarTelefoneDeOutroCliente() {
+        // Given
+        clienteService.criar(ClienteDTO.builder()
+                .nome("Dono do Telefone")
+                .telefones("11 98888-7777")
+                .build());
+
+        // When/Then
+        assertThatThrownBy(() -> clienteService.criar(ClienteDTO.builder()
+                .nome("Outro Cliente")
+                .telefones("+55 (11) 98888-7777")
+                .build()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Telefone já cadastrado");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void naoDeveCadastrarTelefoneGravadoPorTransacaoConcorrente() throws Exception {
+        // Given - a primeira transação grava o número e só confirma depois que a segunda
+        // já passou pela consulta de duplicados e está esperando o índice único
+        List<UUID> criados = new ArrayList<>();
+        CompletableFuture<ClienteDTO> concorrente = new CompletableFuture<>();
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                criados.add(clienteService.criar(ClienteDTO.builder()
+                        .nome("Primeiro Concorrente")
+                        .telefones("11 97777-6666")
+                        .build()).getId());
+                CompletableFuture.runAsync(() -> {
+                    try {
+                        concorrente.complete(clienteService.criar(ClienteDTO.builder()
+                                .nome("Segundo Concorrente")
+                                .telefones("(11) 97777-6666")
+                                .build()));
+                    } catch (RuntimeException e) {
+                        concorrente.completeExceptionally(e);
+                    }
+                });
+                esperarBloqueioNoBanco();
+            });
+
+            // When/Then - mesmo erro 400 da validação, não a violação do índice
+            assertThatThrownBy(() -> concorrente.get(10, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Telefone já cadastrado para outro cliente");
+        } finally {
+            concorrente.thenAccept(dto -> criados.add(dto.getId()));
+            criados.forEach(clienteService::deletar);
+        }
+    }
+
+    private List<UUID> idsDaBusca(String busca) {
+        return clienteService.buscar(busca, PageRequest.of(0, 50)).getContent().stream()
+                .map(ClienteDTO::getId)
+                .toList();
+    }
+
+    private void esperarBloqueioNoBanco() {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < limite) {
+            Integer esperando = jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM pg_stat_activity WHERE wait_event_type = 'Lock'", Integer.class);
+            if (esperando != null && esperando > 0) {
+                return;
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package br.com.anacarla.erp.service;
+
+import br.com.anacarla.erp.BaseIntegrationTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Fila própria sobre um recálculo falso, com as transações reais do contexto: o que se
+ * verifica é o agendamento (commit, rollback, coalescência e serialização por cliente).
+ */
+class MetricasRecalculoQueueIntegrationTest extends BaseIntegrationTest {
+
+    private static final Duration ESPERA = Duration.ofSeconds(5);
+    private static final long JANELA_MS = 200;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private RecalculoFalso recalculo;
+    private MetricasRecalculoQueue fila;
+
+    @BeforeEach
+    void setUp() {
+        recalculo = new RecalculoFalso();
+        fila = new MetricasRecalculoQueue(recalculo, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(fila, "janelaMs", JANELA_MS);
+        ReflectionTestUtils.setField(fila, "threads", 2);
+        fila.iniciar();
+    }
+
+    @AfterEach
+    void tearDown() {
+        recalculo.liberar.countDown();
+        fila.encerrar();
+    }
+
+    @Test
+    void deveCoalescerSolicitacoesDoMesmoClienteNaJanela() throws Exception {
+        // Given
+        UUID cliente = UUID.randomUUID();
+        UUID outro = UUID.randomUUID();
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            fila.agendar(cliente);
+        }
+        fila.agendar(outro);
+
+        // Then - um recálculo por cliente
+        assertThat(fila.getPendentes()).isEqualTo(2);
+        await().atMost(ESPERA).until(() -> recalculo.total(cliente) == 1 && recalculo.total(outro) == 1);
+        assertThat(fila.getPendentes()).isZero();
+        Thread.sleep(JANELA_MS * 2);
+        assertThat(recalculo.total(cliente)).isEqualTo(1);
+    }
+
+    @Test
+    void deveAgendarSomenteAposCommit() {
+        // Given
+        UUID cliente = UUID.randomUUID();
+
+        // When
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            fila.agendar(cliente);
+            // Then - nada pendente antes do commit
+            assertThat(fila.getPendentes()).isZero();
+        });
+
+        // Then
+        assertThat(fila.getPendentes()).isEqualTo(1);
+        await().atMost(ESPERA).until(() -> recalculo.total(cliente) == 1);
+    }
+
+    @Test
+    void deveDescartarAgendamentoNoRollback() throws Exception {
+        // Given
+        UUID cliente = UUID.randomUUID();
+
+        // When
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            fila.agendar(cliente);
+            status.setRollbackOnly();
+        });
+
+        // Then
+        assertThat(fila.getPendentes()).isZero();
+        Thread.sleep(JANELA_MS * 2);
+        assertThat(recalculo.total(cliente)).isZero();
+    }
+
+    @Test
+    void naoDeveSobreporRecalculosDoMesmoCliente() throws Exception {
+        // Given - primeiro recálculo preso além da janela
+        UUID cliente = UUID.randomUUID();
+        recalculo.liberar = new CountDownLatch(1);
+        fila.agendar(cliente);
+        assertThat(recalculo.iniciado.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When - nova solicitação vence com a outra thread do pool livre
+        fila.agendar(cliente);
+        Thread.sleep(JANELA_MS * 2);
+
+        // Then - espera o anterior terminar e então roda, sem execução simultânea
+        assertThat(recalculo.total(cliente)).isEqualTo(1);
+        recalculo.liberar.countDown();
+        await().atMost(ESPERA).until(() -> recalculo.total(cliente) == 2);
+        assertThat(recalculo.simultaneosMaximo.get()).isEqualTo(1);
+        assertThat(fila.getPendentes()).isZero();
+    }
+
+    /**
+     * Conta os recálculos iniciados por cliente e o máximo de execuções simultâneas;
+     * pode travar até ser liberado.
+     */
+    static class RecalculoFalso extends ClienteMetricasService {
+
+        private final Map<UUID, AtomicInteger> recalculos = new ConcurrentHashMap<>();
+        private final AtomicInteger simultaneos = new AtomicInteger();
+        final AtomicInteger simultaneosMaximo = new AtomicInteger();
+        final CountDownLatch iniciado = new CountDownLatch(1);
+        volatile CountDownLatch liberar = new CountDownLatch(0);
+
+        RecalculoFalso() {
+            super(null, null, null, null, null);
+        }
+
+        @Override
+        public void recalcularMetricasCliente(UUID clienteId) {
+            simultaneosMaximo.accumulateAndGet(simultaneos.incrementAndGet(), Math::max);
+            recalculos.computeIfAbsent(clienteId, id -> new AtomicInteger()).incrementAndGet();
+            iniciado.countDown();
+            try {
+                liberar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                simultaneos.decrementAndGet();
+            }
+        }
+
+        int total(UUID clienteId) {
+            AtomicInteger total = recalculos.get(clienteId);
+            return total == null ? 0 : total.get();
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package br.com.anacarla.erp.service;
+
+import br.com.anacarla.erp.AnaCarlaErpApplication;
+import br.com.anacarla.erp.BaseIntegrationTest;
+import br.com.anacarla.erp.domain.enums.StatusPedido;
+import br.com.anacarla.erp.domain.enums.TipoEventoPedido;
+import br.com.anacarla.erp.web.dto.PedidoEventoDTO;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * Com o Postgres do teste, os eventos passam pelo canal LISTEN/NOTIFY: a entrega aos assinantes
+ * é assíncrona, inclusive a dos eventos publicados por esta réplica.
+ */
+class PedidoEventosServiceIntegrationTest extends BaseIntegrationTest {
+
+    private static final Duration ESPERA = Duration.ofSeconds(5);
+
+    private static ConfigurableApplicationContext outraReplica;
+
+    @Autowired
+    private PedidoEventosService pedidoEventosService;
+
+    private final List<EmitterGravado> emitters = new ArrayList<>();
+    private int assinantesAntes;
+
+    @BeforeAll
+    static void iniciarOutraReplica() {
+        outraReplica = new SpringApplicationBuilder(AnaCarlaErpApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "app.scheduling.churn-alert-enabled=false",
+                        "app.scheduling.recencia-rfm-enabled=false")
+                .run();
+    }
+
+    @AfterAll
+    static void encerrarOutraReplica() {
+        if (outraReplica != null) {
+            outraReplica.close();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        assinantesAntes = pedidoEventosService.getAssinantes();
+    }
+
+    @AfterEach
+    void desconectar() {
+        // Envio falhando: o próximo heartbeat descarta os assinantes do teste
+        emitters.forEach(EmitterGravado::fechar);
+        pedidoEventosService.heartbeat();
+        await().atMost(ESPERA).until(() -> pedidoEventosService.getAssinantes() == assinantesAntes);
+    }
+
+    @Test
+    void deveReenviarApenasEventosPosterioresAoLastEventId() {
+        // Given
+        EmitterGravado conectado = assinar(new EmitterGravado(), null);
+        publicar(3);
+        await().atMost(ESPERA).until(() -> conectado.ids().size() == 3);
+        List<String> ids = conectado.ids();
+
+        // When - reconexão depois de receber o primeiro
+        EmitterGravado reconectado = assinar(new EmitterGravado(), ids.get(0));
+
+        // Then
+        await().atMost(ESPERA).until(() -> reconectado.ids().size() == 2);
+        assertThat(reconectado.ids()).containsExactly(ids.get(1), ids.get(2));
+        assertThat(reconectado.nomes()).containsOnly(PedidoEventosService.EVENTO_PEDIDO);
+
+        // E os eventos seguintes chegam uma vez, em ordem
+        publicar(1);
+        await().atMost(ESPERA).until(() -> reconectado.ids().size() == 3);
+        assertThat(reconectado.sequenciais()).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void deveSolicitarResyncComLastEventIdForaDoBuffer() {
+        // Given
+        EmitterGravado conectado = assinar(new EmitterGravado(), null);
+        publicar(1);
+        await().atMost(ESPERA).until(() -> conectado.ids().size() == 1);
+        String id = conectado.ids().get(0);
+        String instancia = id.substring(0, id.lastIndexOf('-'));
+
+        // When - à frente da sequência, sem instância e inválido
+        EmitterGravado aFrente = assinar(new EmitterGravado(), instancia + "-999999999");
+        EmitterGravado semInstancia = assinar(new EmitterGravado(), "999999999");
+        EmitterGravado invalido = assinar(new EmitterGravado(), "abc");
+
+        // Then
+        for (EmitterGravado emitter : List.of(aFrente, semInstancia, invalido)) {
+            await().atMost(ESPERA).until(() -> !emitter.eventos.isEmpty());
+            assertThat(emitter.nomes()).containsExactly(PedidoEventosService.EVENTO_RESYNC);
+        }
+    }
+
+    @Test
+    void deveSolicitarResyncComLastEventIdDeOutraInstanciaDentroDoBuffer() {
+        // Given
+        EmitterGravado conectado = assinar(new EmitterGravado(), null);
+        publicar(3);
+        await().atMost(ESPERA).until(() -> conectado.ids().size() == 3);
+
+        // When - reconexão com o id de outra réplica cujo número cai no buffer desta
+        EmitterGravado reconectado = assinar(new EmitterGravado(), "outra-" + conectado.sequenciais().get(0));
+
+        // Then - resync, e não o reenvio dos eventos desta réplica após esse número
+        await().atMost(ESPERA).until(() -> !reconectado.eventos.isEmpty());
+        assertThat(reconectado.nomes()).containsExactly(PedidoEventosService.EVENTO_RESYNC);
+    }
+
+    @Test
+    void deveEntregarEventosPublicadosEmOutraReplica() {
+        // Given
+        EmitterGravado conectado = assinar(new EmitterGravado(), null);
+        UUID pedidoId = UUID.randomUUID();
+
+        // When
+        outraReplica.getBean(PedidoEventosService.class).publicar(PedidoEventoDTO.builder()
+                .tipo(TipoEventoPedido.CRIADO)
+                .pedidoId(pedidoId)
+                .status(StatusPedido.RECEBIDO)
+                .timestamp(Instant.now())
+                .build());
+
+        // Then
+        await().atMost(ESPERA).until(() -> conectado.ids().size() == 1);
+        assertThat(conectado.nomes()).containsExactly(PedidoEventosService.EVENTO_PEDIDO);
+        assertThat(conectado.eventos.get(0)).contains(pedidoId.toString());
+    }
+
+    @Test
+    void deveEnviarHeartbeatEDescartarConexoesEncerradas() {
+        // Given
+        EmitterGravado ativo = assinar(new EmitterGravado(), null);
+        EmitterGravado encerrado = assinar(new EmitterGravado(), null);
+        encerrado.fechar();
+
+        // When
+        pedidoEventosService.heartbeat();
+
+        // Then
+        await().atMost(ESPERA).until(() -> ativo.eventos.stream().anyMatch(e -> e.startsWith(":ping")));
+        await().atMost(ESPERA).until(() -> pedidoEventosService.getAssinantes() == assinantesAntes + 1);
+    }
+
+    @Test
+    void naoDeveBloquearPublicacaoNemOutrosAssinantesComClienteLento() throws Exception {
+        // Given - um assinante preso no envio (socket sem leitura do outro lado)
+        EmitterLento lento = assinar(new EmitterLento(), null);
+        EmitterGravado rapido = assinar(new EmitterGravado(), null);
+        publicar(1);
+        assertThat(lento.travado.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When / Then - a publicação (thread do commit) não espera o cliente lento
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> publicar(5));
+        await().atMost(ESPERA).until(() -> rapido.ids().size() == 6);
+
+        // E o lento recebe tudo, em ordem, quando o socket volta a escrever
+        lento.liberar.countDown();
+        await().atMost(ESPERA).until(() -> lento.ids().size() == 6);
+        assertThat(lento.ids()).isEqualTo(rapido.ids());
+    }
+
+    @Test
+    void deveDesconectarAssinanteComFilaCheia() throws Exception {
+        int filaMaxima = (int) ReflectionTestUtils.getField(pedidoEventosService, "filaMaxima");
+        ReflectionTestUtils.setField(pedidoEventosService, "filaMaxima", 2);
+        try {
+            // Given
+            EmitterLento lento = assinar(new EmitterLento(), null);
+            publicar(1);
+            assertThat(lento.travado.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // When - dois pendentes cabem; o terceiro estoura a fila
+            publicar(3);
+
+            // Then - desconectado; retomará pelo Last-Event-ID
+            await().atMost(ESPERA).until(() -> pedidoEventosService.getAssinantes() == assinantesAntes);
+            lento.liberar.countDown();
+        } finally {
+            ReflectionTestUtils.setField(pedidoEventosService, "filaMaxima", filaMaxima);
+        }
+    }
+
+    private <T extends EmitterGravado> T assinar(T emitter, String lastEventId) {
+        emitters.add(emitter);
+        pedidoEventosService.registrar(emitter, lastEventId);
+        return emitter;
+    }
+
+    private void publicar(int quantidade) {
+        for (int i = 0; i < quantidade; i++) {
+            pedidoEventosService.publicar(PedidoEventoDTO.builder()
+                    .tipo(TipoEventoPedido.STATUS_ALTERADO)
+                    .pedidoId(UUID.randomUUID())
+                    .status(StatusPedido.PREPARANDO)
+                    .statusAnterior(StatusPedido.RECEBIDO)
+                    .timestamp(Instant.now())
+                    .build());
+        }
+    }
+
+    /**
+     * Guarda o texto de cada evento enviado, no formato do stream SSE.
+     */
+    static class EmitterGravado extends SseEmitter {
+
+        private static final Pattern ID = Pattern.compile("^id:(\\S+-\\d+)$", Pattern.MULTILINE);
+        private static final Pattern NOME = Pattern.compile("^event:(\\w+)$", Pattern.MULTILINE);
+
+        final List<String> eventos = new CopyOnWriteArrayList<>();
+        private volatile boolean fechado;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (fechado) {
+                throw new IOException("Conexão encerrada pelo cliente");
+            }
+            eventos.add(builder.build().stream()
+                    .map(dado -> String.valueOf(dado.getData()))
+                    .collect(Collectors.joining()));
+        }
+
+        void fechar() {
+            fechado = true;
+        }
+
+        List<String> ids() {
+            return extrair(ID);
+        }
+
+        List<Long> sequenciais() {
+            return ids().stream().map(id -> Long.valueOf(id.substring(id.lastIndexOf('-') + 1))).toList();
+        }
+
+        List<String> nomes() {
+            return extrair(NOME);
+        }
+
+        private List<String> extrair(Pattern padrao) {
+            List<String> valores = new ArrayList<>();
+            for (String evento : eventos) {
+                Matcher matcher = padrao.matcher(evento);
+                if (matcher.find()) {
+                    valores.add(matcher.group(1));
+                }
+            }
+            return valores;
+        }
+    }
+
+    /**
+     * Trava no primeiro envio até ser liberado.
+     */
+    static class EmitterLento extends EmitterGravado {
+
+        final CountDownLatch travado = new CountDownLatch(1);
+        final CountDownLatch liberar = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            travado.countDown();
+            try {
+                liberar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            super.send(builder);
+        }
+
+        @Override
+        void fechar() {
+            super.fechar();
+            liberar.countDown();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package br.com.anacarla.erp.service;
+
+import br.com.anacarla.erp.BaseIntegrationTest;
+import br.com.anacarla.erp.domain.enums.CanalPedido;
+import br.com.anacarla.erp.web.dto.ClienteDTO;
+import br.com.anacarla.erp.web.dto.ClienteMetricasDTO;
+import br.com.anacarla.erp.web.dto.ImportacaoFalhaDTO;
+import br.com.anacarla.erp.web.dto.ImportacaoPedidosDTO;
+import br.com.anacarla.erp.web.dto.ProducaoItemDTO;
+import br.com.anacarla.erp.web.dto.VendasPeriodoDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sem transação de teste: cada lote da importação é uma transação real, e o rollup de vendas e
+ * a produção da cozinha só mudam com o commit do lote. Os dados são removidos pelos serviços
+ * ao final.
+ */
+class PedidoImportacaoServiceIntegrationTest extends BaseIntegrationTest {
+
+    private static final String PRATO = "Marmita Importada";
+
+    @Autowired
+    private PedidoImportacaoService pedidoImportacaoService;
+
+    @Autowired
+    private ClienteService clienteService;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private VendasService vendasService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID clienteId;
+
+    @BeforeEach
+    void setUp() {
+        clienteId = clienteService.criar(ClienteDTO.builder()
+                .nome("Cliente Importado")
+                .email("importado@example.com")
+                .build()).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.queryForList("SELECT id FROM pedidos WHERE cliente_id = ?", UUID.class, clienteId)
+                .forEach(pedidoService::deletar);
+        clienteService.deletar(clienteId);
+        vendasService.aplicarPendentes();
+    }
+
+    @Test
+    void deveImportarPedidosERejeitarLinhasInvalidas() throws Exception {
+        // Given - Dois pedidos entregues, uma linha em branco, JSON inválido e cliente inexistente
+        String ndjson = String.join("\n",
+                pedido(clienteId, "ENTREGUE", "2024-03-01T12:00:00Z", 30),
+                pedido(clienteId, "ENTREGUE", "2024-03-11T12:00:00Z", 50),
+                "",
+                "{nao e json",
+                pedido(UUID.randomUUID(), "ENTREGUE", "2024-03-12T12:00:00Z", 10));
+
+        // When
+        ImportacaoPedidosDTO resultado = importar(ndjson);
+
+        // Then
+        assertThat(resultado.getLinhas()).isEqualTo(4);
+        assertThat(resultado.getImportados()).isEqualTo(2);
+        assertThat(resultado.getRejeitados()).isEqualTo(2);
+        assertThat(resultado.getClientesAfetados()).isEqualTo(1);
+        assertThat(resultado.getFalhas()).extracting(ImportacaoFalhaDTO::getLinha).containsExactly(4L, 5L);
+        assertThat(resultado.getLinhasPorSegundo()).isNotNull();
+
+        // Métricas recalculadas com as datas de entrega importadas
+        ClienteMetricasDTO metricas = clienteService.obterMetricas(clienteId);
+        assertThat(metricas.getTotalPedidos()).isEqualTo(2);
+        assertThat(metricas.getValorTotal()).isEqualByComparingTo(BigDecimal.valueOf(80.00));
+        assertThat(metricas.getIntervaloMedioRecompra()).isEqualTo(10);
+    }
+
+    @Test
+    void deveRejeitarSomenteOLoteComErroDeBanco() throws Exception {
+        int tamanhoLote = (int) ReflectionTestUtils.getField(pedidoImportacaoService, "tamanhoLote");
+        ReflectionTestUtils.setField(pedidoImportacaoService, "tamanhoLote", 2);
+        try {
+            // Given - Três lotes de dois; no segundo, um item acima do tamanho da coluna
+            int producaoAntes = quantidadeEmProducao();
+            String ndjson = String.join("\n",
+                    pedido(clienteId, "RECEBIDO", "2019-05-01T15:00:00Z", PRATO, 2),
+                    pedido(clienteId, "RECEBIDO", "2019-05-01T16:00:00Z", PRATO, 3),
+                    pedido(clienteId, "RECEBIDO", "2019-05-02T15:00:00Z", PRATO, 4),
+                    pedido(clienteId, "RECEBIDO", "2019-05-02T16:00:00Z", "X".repeat(201), 1),
+                    pedido(clienteId, "RECEBIDO", "2019-05-03T15:00:00Z", PRATO, 5));
+
+            // When
+            ImportacaoPedidosDTO resultado = importar(ndjson);
+            vendasService.aplicarPendentes();
+
+            // Then - o lote inteiro rejeitado, os demais confirmados
+            assertThat(resultado.getImportados()).isEqualTo(3);
+            assertThat(resultado.getRejeitados()).isEqualTo(2);
+            assertThat(resultado.getFalhas()).extracting(ImportacaoFalhaDTO::getLinha).containsExactly(3L, 4L);
+            assertThat(resultado.getFalhas()).allSatisfy(falha ->
+                    assertThat(falha.getErro()).startsWith("Lote rejeitado pelo banco"));
+            assertThat(jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM pedidos WHERE cliente_id = ?", Integer.class, clienteId)).isEqualTo(3);
+
+            // Rollup e produção só com os lotes confirmados
+            assertThat(pedidosNoDia(LocalDate.of(2019, 5, 1))).isEqualTo(2);
+            assertThat(pedidosNoDia(LocalDate.of(2019, 5, 2))).isZero();
+            assertThat(pedidosNoDia(LocalDate.of(2019, 5, 3))).isEqualTo(1);
+            assertThat(quantidadeEmProducao() - producaoAntes).isEqualTo(10);
+        } finally {
+            ReflectionTestUtils.setField(pedidoImportacaoService, "tamanhoLote", tamanhoLote);
+        }
+    }
+
+    private ImportacaoPedidosDTO importar(String ndjson) throws IOException {
+        return pedidoImportacaoService.importar(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private long pedidosNoDia(LocalDate dia) {
+        List<VendasPeriodoDTO> totais = vendasService.diario(dia, dia, CanalPedido.WHATSAPP, null);
+        return totais.stream().mapToLong(VendasPeriodoDTO::getPedidos).sum();
+    }
+
+    private int quantidadeEmProducao() {
+        return pedidoService.obterProducao().getItens().stream()
+                .filter(item -> item.getNome().equals(PRATO))
+                .mapToInt(ProducaoItemDTO::getQuantidade)
+                .sum();
+    }
+
+    private static String pedido(UUID clienteId, String status, String dataCriacao, int preco) {
+        return """
+                {"clienteId":"%s","canal":"WHATSAPP","status":"%s","dataCriacao":"%s",\
+                "itens":[{"nome":"Marmita","precoUnit":%d,"quantidade":1}]}""".formatted(clienteId, status, dataCriacao, preco);
+    }
+
+    private static String pedido(UUID clienteId, String status, String dataCriacao, String item, int quantidade) {
+        return """
+                {"clienteId":"%s","canal":"WHATSAPP","status":"%s","dataCriacao":"%s",\
+                "itens":[{"nome":"%s","precoUnit":20,"quantidade":%d}]}""".formatted(clienteId, status, dataCriacao, item, quantidade);
+    }
+}
@@ -1,20 +1,27 @@
 package br.com.anacarla.erp.service;
 
 import br.com.anacarla.erp.BaseIntegrationTest;
+import br.com.anacarla.erp.domain.VersaoRecurso;
 import br.com.anacarla.erp.domain.enums.CanalPedido;
 import br.com.anacarla.erp.domain.enums.StatusPedido;
 import br.com.anacarla.erp.web.dto.ClienteDTO;
 import br.com.anacarla.erp.web.dto.ClienteMetricasDTO;
+import br.com.anacarla.erp.web.dto.KanbanColunaDTO;
 import br.com.anacarla.erp.web.dto.PedidoDTO;
 import br.com.anacarla.erp.web.dto.PedidoItemDTO;
+import br.com.anacarla.erp.web.dto.ProducaoItemDTO;
+import br.com.anacarla.erp.web.dto.StatusLoteResultadoDTO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -28,6 +35,9 @@ class PedidoServiceIntegrationTest extends BaseIntegrationTest {
     @Autowired
     private ClienteService clienteService;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private UUID clienteId;
 
     @BeforeEach
@@ -67,6 +77,17 @@ class PedidoServiceIntegrationTest extends BaseIntegrationTest {
         assertThat(criado.getItens()).hasSize(1);
     }
 
+    @Test
+    void deveGerarIdsUuidV7OrdenadosNoTempo() {
+        // When
+        PedidoDTO primeiro = createPedidoDTO(StatusPedido.RECEBIDO);
+        PedidoDTO segundo = createPedidoDTO(StatusPedido.RECEBIDO);
+
+        // Then - Ordem textual = ordem de bytes usada pelo índice do Postgres
+        assertThat(primeiro.getId().version()).isEqualTo(7);
+        assertThat(segundo.getId().toString()).isGreaterThan(primeiro.getId().toString());
+    }
+
     @Test
     void deveAtualizarStatusParaEntregueERecalcularMetricas() {
         // Given - Criar pedido
@@ -99,6 +120,42 @@ class PedidoServiceIntegrationTest extends BaseIntegrationTest {
         assertThat(metricas.getUltimaCompra()).isNotNull();
     }
 
+    @Test
+    void deveAtualizarMetricasIncrementalmenteAoEntregarDesfazerERemover() {
+        // Given
+        PedidoDTO primeiro = createPedidoDTO(StatusPedido.RECEBIDO);
+        PedidoDTO segundo = createPedidoDTO(StatusPedido.RECEBIDO);
+        pedidoService.atualizarStatus(primeiro.getId(), StatusPedido.ENTREGUE);
+        pedidoService.atualizarStatus(segundo.getId(), StatusPedido.ENTREGUE);
+
+        // When - Segundo pedido volta para o Kanban
+        pedidoService.atualizarStatus(segundo.getId(), StatusPedido.PRONTO);
+        ClienteMetricasDTO aposDesfazer = clienteService.obterMetricas(clienteId);
+
+        // Then
+        assertThat(aposDesfazer.getTotalPedidos()).isEqualTo(1);
+        assertThat(aposDesfazer.getValorTotal()).isEqualByComparingTo(BigDecimal.valueOf(20.00));
+        assertThat(aposDesfazer.getIntervaloMedioRecompra()).isNull();
+
+        // When - Primeiro pedido é removido
+        pedidoService.deletar(primeiro.getId());
+        ClienteMetricasDTO aposRemover = clienteService.obterMetricas(clienteId);
+
+        // Then
+        assertThat(aposRemover.getTotalPedidos()).isZero();
+        assertThat(aposRemover.getValorTotal()).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(aposRemover.getUltimaCompra()).isNull();
+
+        // When - Entregue novamente, o incremental deve coincidir com o recálculo completo
+        pedidoService.atualizarStatus(segundo.getId(), StatusPedido.ENTREGUE);
+        ClienteMetricasDTO incremental = clienteService.obterMetricas(clienteId);
+        ClienteMetricasDTO completo = clienteService.recalcularMetricas(clienteId);
+
+        // Then
+        assertThat(incremental).isEqualTo(completo);
+        assertThat(incremental.getTotalPedidos()).isEqualTo(1);
+    }
+
     @Test
     void deveListarPedidosPorStatus() {
         // Given - Criar pedidos com diferentes status
@@ -115,6 +172,35 @@ class PedidoServiceIntegrationTest extends BaseIntegrationTest {
         assertThat(preparando).hasSize(1);
     }
 
+    @Test
+    void deveMontarKanbanPaginadoPorCursor() {
+        // Given
+        PedidoDTO primeiro = createPedidoDTO(StatusPedido.RECEBIDO);
+        PedidoDTO segundo = createPedidoDTO(StatusPedido.RECEBIDO);
+        PedidoDTO terceiro = createPedidoDTO(StatusPedido.RECEBIDO);
+        createPedidoDTO(StatusPedido.PRONTO);
+
+        // When
+        Map<StatusPedido, KanbanColunaDTO> kanban = pedidoService.montarKanban(null, 2);
+        KanbanColunaDTO recebidos = kanban.get(StatusPedido.RECEBIDO);
+        KanbanColunaDTO proximaPagina = pedidoService.listarColunaKanban(
+                StatusPedido.RECEBIDO, recebidos.getProximoCursor(), 2);
+
+        // Then
+        assertThat(kanban).containsOnlyKeys(StatusPedido.RECEBIDO, StatusPedido.PREPARANDO,
+                StatusPedido.PRONTO, StatusPedido.ENTREGUE);
+        assertThat(recebidos.isTemMais()).isTrue();
+        assertThat(recebidos.getPedidos()).extracting(PedidoDTO::getId)
+                .containsExactly(terceiro.getId(), segundo.getId());
+        assertThat(recebidos.getPedidos().get(0).getNomeCliente()).isEqualTo("Teste Cliente");
+        assertThat(recebidos.getPedidos().get(0).getItens()).hasSize(1);
+        assertThat(proximaPagina.getPedidos()).extracting(PedidoDTO::getId)
+                .containsExactly(primeiro.getId());
+        assertThat(proximaPagina.isTemMais()).isFalse();
+        assertThat(proximaPagina.getProximoCursor()).isNull();
+        assertThat(kanban.get(StatusPedido.PRONTO).getPedidos()).hasSize(1);
+    }
+
     @Test
     void deveCalcularValorTotalAutomaticamente() {
         // Given
@@ -145,6 +231,85 @@ class PedidoServiceIntegrationTest extends BaseIntegrationTest {
         assertThat(criado.getValorTotal()).isEqualByComparingTo(BigDecimal.valueOf(36.75));
     }
 
+    @Test
+    void deveMudarVersaoQuandoPedidoMuda() {
+        // Given
+        PedidoDTO pedido = createPedidoDTO(StatusPedido.RECEBIDO);
+        VersaoRecurso antesLista = pedidoService.versao();
+        VersaoRecurso antes = pedidoService.versao(pedido.getId());
+
+        // When
+        pedidoService.atualizarStatus(pedido.getId(), StatusPedido.PREPARANDO);
+
+        // Then
+        VersaoRecurso depois = pedidoService.versao(pedido.getId());
+        assertThat(antes.existe()).isTrue();
+        assertThat(depois.etag()).isNotEqualTo(antes.etag());
+        assertThat(pedidoService.versao().etag(StatusPedido.PREPARANDO))
+                .isNotEqualTo(antesLista.etag(StatusPedido.PREPARANDO));
+        assertThat(pedidoService.versao(UUID.randomUUID()).existe()).isFalse();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void deveAtualizarProducaoAposCommitDasAlteracoesDosPedidos() {
+        // Commits reais: os totais em memória mudam no afterCommit, sem reconstrução
+        try {
+            // Given - Dois pedidos em produção e um pronto com o mesmo prato
+            UUID recebido = criarPedidoComItem(StatusPedido.RECEBIDO, "Marmita Fit Frango", 2);
+            UUID preparando = criarPedidoComItem(StatusPedido.PREPARANDO, "Marmita Fit Frango", 3);
+            UUID pronto = criarPedidoComItem(StatusPedido.PRONTO, "Marmita Fit Frango", 5);
+            assertThat(quantidadeEmProducao("Marmita Fit Frango")).isEqualTo(5);
+
+            // When / Then - Pedido pronto volta para a cozinha
+            pedidoService.atualizarStatus(pronto, StatusPedido.PREPARANDO);
+            assertThat(quantidadeEmProducao("Marmita Fit Frango")).isEqualTo(10);
+
+            // Cancelado sai da produção
+            pedidoService.atualizarStatus(recebido, StatusPedido.CANCELADO);
+            assertThat(quantidadeEmProducao("Marmita Fit Frango")).isEqualTo(8);
+
+            // Pronto também
+            pedidoService.atualizarStatus(preparando, StatusPedido.PRONTO);
+            assertThat(quantidadeEmProducao("Marmita Fit Frango")).isEqualTo(5);
+        } finally {
+            // Pelo serviço, para retirar os pedidos da produção e manter o rollup de vendas consistente
+            jdbcTemplate.queryForList("SELECT id FROM pedidos WHERE cliente_id = ?", UUID.class, clienteId)
+                    .forEach(pedidoService::deletar);
+            clienteService.deletar(clienteId);
+        }
+        assertThat(quantidadeEmProducao("Marmita Fit Frango")).isZero();
+    }
+
+    @Test
+    void deveAtualizarStatusEmLoteComResultadoPorPedido() {
+        // Given - Dois pedidos prontos do mesmo cliente, um já entregue e um id inexistente
+        PedidoDTO primeiro = createPedidoDTO(StatusPedido.PRONTO);
+        PedidoDTO segundo = createPedidoDTO(StatusPedido.PRONTO);
+        PedidoDTO jaEntregue = createPedidoDTO(StatusPedido.PRONTO);
+        pedidoService.atualizarStatus(jaEntregue.getId(), StatusPedido.ENTREGUE);
+        UUID inexistente = UUID.randomUUID();
+
+        // When
+        List<StatusLoteResultadoDTO> resultados = pedidoService.atualizarStatusEmLote(
+                List.of(primeiro.getId(), segundo.getId(), jaEntregue.getId(), inexistente, primeiro.getId()),
+                StatusPedido.ENTREGUE);
+
+        // Then - Um resultado por id distinto, na ordem enviada
+        assertThat(resultados).extracting(StatusLoteResultadoDTO::getPedidoId)
+                .containsExactly(primeiro.getId(), segundo.getId(), jaEntregue.getId(), inexistente);
+        assertThat(resultados).extracting(StatusLoteResultadoDTO::getAlterado)
+                .containsExactly(true, true, false, false);
+        assertThat(resultados.get(0).getStatusAnterior()).isEqualTo(StatusPedido.PRONTO);
+        assertThat(resultados.get(3).getErro()).isEqualTo("Pedido não encontrado");
+        assertThat(pedidoService.buscarPorId(segundo.getId()).getDataEntrega()).isNotNull();
+
+        // Métricas do cliente recalculadas uma vez com as três entregas
+        ClienteMetricasDTO metricas = clienteService.obterMetricas(clienteId);
+        assertThat(metricas.getTotalPedidos()).isEqualTo(3);
+        assertThat(metricas.getValorTotal()).isEqualByComparingTo(BigDecimal.valueOf(60.00));
+    }
+
     private PedidoDTO createPedidoDTO(StatusPedido status) {
         return pedidoService.criar(PedidoDTO.builder()
                 .clienteId(clienteId)
@@ -160,5 +325,24 @@ class PedidoServiceIntegrationTest extends BaseIntegrationTest {
                 ))
                 .build());
     }
-}
 
+    private UUID criarPedidoComItem(StatusPedido status, String nome, int quantidade) {
+        return pedidoService.criar(PedidoDTO.builder()
+                .clienteId(clienteId)
+                .canal(CanalPedido.WHATSAPP)
+                .status(status)
+                .itens(List.of(PedidoItemDTO.builder()
+                        .nome(nome)
+                        .precoUnit(BigDecimal.valueOf(25.00))
+                        .quantidade(quantidade)
+                        .build()))
+                .build()).getId();
+    }
+
+    private int quantidadeEmProducao(String nome) {
+        return pedidoService.obterProducao().getItens().stream()
+                .filter(item -> item.getNome().equals(nome))
+                .mapToInt(ProducaoItemDTO::getQuantidade)
+                .sum();
+    }
+}
@@ -0,0 +1,175 @@
+package br.com.anacarla.erp.service;
+
+import br.com.anacarla.erp.BaseIntegrationTest;
+import br.com.anacarla.erp.domain.enums.CanalPedido;
+import br.com.anacarla.erp.domain.enums.StatusPedido;
+import br.com.anacarla.erp.web.dto.ClienteDTO;
+import br.com.anacarla.erp.web.dto.PedidoDTO;
+import br.com.anacarla.erp.web.dto.PedidoItemDTO;
+import br.com.anacarla.erp.web.dto.VendasPeriodoDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sem transação de teste: os deltas são consolidados em transações próprias, então os pedidos
+ * são confirmados de fato e removidos pelo serviço ao final (o que também devolve o rollup aos
+ * totais anteriores).
+ */
+class VendasServiceIntegrationTest extends BaseIntegrationTest {
+
+    private static final LocalDate HOJE = LocalDate.now(ZoneId.of("America/Sao_Paulo"));
+
+    @Autowired
+    private VendasService vendasService;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private ClienteService clienteService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private UUID clienteId;
+
+    @BeforeEach
+    void setUp() {
+        clienteId = clienteService.criar(ClienteDTO.builder()
+                .nome("Cliente Vendas")
+                .email("vendas@example.com")
+                .build()).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.queryForList("SELECT id FROM pedidos WHERE cliente_id = ?", UUID.class, clienteId)
+                .forEach(pedidoService::deletar);
+        clienteService.deletar(clienteId);
+        vendasService.aplicarPendentes();
+    }
+
+    @Test
+    void deveManterRollupAoCriarAlterarStatusERemoverPedidos() {
+        // Given
+        VendasPeriodoDTO antes = totalHoje();
+
+        // When - Um entregue, um cancelado (fora da receita) e um removido
+        PedidoDTO entregue = criarPedido(BigDecimal.valueOf(30.00));
+        PedidoDTO cancelado = criarPedido(BigDecimal.valueOf(20.00));
+        PedidoDTO removido = criarPedido(BigDecimal.valueOf(10.00));
+        pedidoService.atualizarStatus(entregue.getId(), StatusPedido.ENTREGUE);
+        pedidoService.atualizarStatus(cancelado.getId(), StatusPedido.CANCELADO);
+        pedidoService.deletar(removido.getId());
+        vendasService.aplicarPendentes();
+
+        // Then
+        VendasPeriodoDTO depois = totalHoje();
+        assertThat(depois.getPedidos() - antes.getPedidos()).isEqualTo(1);
+        assertThat(depois.getValorTotal().subtract(antes.getValorTotal()))
+                .isEqualByComparingTo(BigDecimal.valueOf(30.00));
+        List<VendasPeriodoDTO> entregues = vendasService.diario(HOJE, HOJE, CanalPedido.PRESENCIAL,
+                List.of(StatusPedido.ENTREGUE));
+        assertThat(entregues).singleElement()
+                .extracting(VendasPeriodoDTO::getValorTotal)
+                .satisfies(valor -> assertThat(valor).isGreaterThanOrEqualTo(BigDecimal.valueOf(30.00)));
+    }
+
+    @Test
+    void deveReconstruirComOsMesmosTotaisDoIncremental() {
+        // Given
+        PedidoDTO pedido = criarPedido(BigDecimal.valueOf(45.00));
+        pedidoService.atualizarStatus(pedido.getId(), StatusPedido.PRONTO);
+        vendasService.aplicarPendentes();
+        VendasPeriodoDTO incremental = totalHoje();
+
+        // When
+        vendasService.reconstruir(HOJE, HOJE);
+
+        // Then
+        VendasPeriodoDTO reconstruido = totalHoje();
+        assertThat(reconstruido.getPedidos()).isEqualTo(incremental.getPedidos());
+        assertThat(reconstruido.getValorTotal()).isEqualByComparingTo(incremental.getValorTotal());
+    }
+
+    @Test
+    void naoDeveAlterarRollupAntesDoCommitNemNoRollback() {
+        // Given
+        VendasPeriodoDTO antes = totalHoje();
+
+        // When
+        transactionTemplate.executeWithoutResult(status -> {
+            criarPedido(BigDecimal.valueOf(25.00));
+            // Then - só o delta, sem tocar na linha do dia
+            assertThat(deltasPendentes()).isPositive();
+            assertThat(totalHoje().getPedidos()).isEqualTo(antes.getPedidos());
+            status.setRollbackOnly();
+        });
+        vendasService.aplicarPendentes();
+
+        // Then - o delta saiu junto com o rollback
+        VendasPeriodoDTO depois = totalHoje();
+        assertThat(deltasPendentes()).isZero();
+        assertThat(depois.getPedidos()).isEqualTo(antes.getPedidos());
+        assertThat(depois.getValorTotal()).isEqualByComparingTo(antes.getValorTotal());
+    }
+
+    @Test
+    void naoDeveSomarEmDobroDeltasPendentesNaReconstrucao() {
+        // Given - pedido confirmado com o delta ainda não consolidado
+        vendasService.aplicarPendentes();
+        vendasService.reconstruir(HOJE, HOJE);
+        VendasPeriodoDTO antes = totalHoje();
+        criarPedido(BigDecimal.valueOf(15.00));
+        assertThat(deltasPendentes()).isPositive();
+
+        // When
+        vendasService.reconstruir(HOJE, HOJE);
+        vendasService.aplicarPendentes();
+
+        // Then - contado uma vez, pela reconstrução
+        VendasPeriodoDTO depois = totalHoje();
+        assertThat(deltasPendentes()).isZero();
+        assertThat(depois.getPedidos() - antes.getPedidos()).isEqualTo(1);
+        assertThat(depois.getValorTotal().subtract(antes.getValorTotal()))
+                .isEqualByComparingTo(BigDecimal.valueOf(15.00));
+    }
+
+    private int deltasPendentes() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM vendas_diarias_delta", Integer.class);
+    }
+
+    private VendasPeriodoDTO totalHoje() {
+        return vendasService.diario(HOJE, HOJE, CanalPedido.PRESENCIAL, null).stream()
+                .findFirst()
+                .orElse(VendasPeriodoDTO.builder().pedidos(0L).valorTotal(BigDecimal.ZERO).build());
+    }
+
+    private PedidoDTO criarPedido(BigDecimal preco) {
+        return pedidoService.criar(PedidoDTO.builder()
+                .clienteId(clienteId)
+                .canal(CanalPedido.PRESENCIAL)
+                .status(StatusPedido.RECEBIDO)
+                .itens(List.of(PedidoItemDTO.builder()
+                        .nome("Marmita")
+                        .precoUnit(preco)
+                        .quantidade(1)
+                        .build()))
+                .build());
+    }
+}
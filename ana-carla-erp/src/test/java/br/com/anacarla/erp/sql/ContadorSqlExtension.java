@@ -0,0 +1,61 @@
+package br.com.anacarla.erp.sql;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+/**
+ * Conta os statements SQL executados na thread do teste (MockMvc roda a requisição na
+ * mesma thread), para travar regressões de N+1:
+ * <pre>
+ * &#64;RegisterExtension
+ * ContadorSqlExtension sql = new ContadorSqlExtension();
+ *
+ * sql.noMaximo(3, () -&gt; mockMvc.perform(get("/pedidos")).andExpect(status().isOk()));
+ * </pre>
+ * Em testes {@code @Transactional}, faça flush e clear do EntityManager antes de medir: o
+ * flush pendente cairia na medição e o cache de primeiro nível esconderia as consultas.
+ */
+public class ContadorSqlExtension implements BeforeEachCallback, AfterEachCallback {
+
+    private ContadorSql.Medicao medicao;
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        medicao = ContadorSql.iniciar();
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        if (medicao != null) {
+            medicao.close();
+            medicao = null;
+        }
+    }
+
+    /**
+     * Executa o trecho e falha se ele emitir mais que {@code maximo} statements.
+     */
+    public <T> T noMaximo(int maximo, Trecho<T> trecho) throws Exception {
+        medicao.zerar();
+        T resultado = trecho.executar();
+        int statements = medicao.getStatements();
+        if (statements > maximo) {
+            throw new AssertionError("Esperado no máximo " + maximo + " statements SQL, executados " + statements);
+        }
+        return resultado;
+    }
+
+    public void zerar() {
+        medicao.zerar();
+    }
+
+    public int getStatements() {
+        return medicao.getStatements();
+    }
+
+    @FunctionalInterface
+    public interface Trecho<T> {
+        T executar() throws Exception;
+    }
+}
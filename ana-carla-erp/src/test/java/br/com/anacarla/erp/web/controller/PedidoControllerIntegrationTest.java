@@ -0,0 +1,109 @@
+package br.com.anacarla.erp.web.controller;
+
+import br.com.anacarla.erp.BaseIntegrationTest;
+import br.com.anacarla.erp.domain.enums.CanalPedido;
+import br.com.anacarla.erp.domain.enums.StatusPedido;
+import br.com.anacarla.erp.service.ClienteService;
+import br.com.anacarla.erp.service.PedidoService;
+import br.com.anacarla.erp.sql.ContadorSqlExtension;
+import br.com.anacarla.erp.sql.ContadorSqlFilter;
+import br.com.anacarla.erp.web.dto.ClienteDTO;
+import br.com.anacarla.erp.web.dto.PedidoDTO;
+import br.com.anacarla.erp.web.dto.PedidoItemDTO;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Limites de statements SQL por endpoint: o custo não pode crescer com o número de pedidos
+ * (cliente e itens carregados em lote, não um por pedido).
+ */
+@AutoConfigureMockMvc
+@Transactional
+class PedidoControllerIntegrationTest extends BaseIntegrationTest {
+
+    private static final int PEDIDOS = 5;
+
+    @RegisterExtension
+    ContadorSqlExtension sql = new ContadorSqlExtension();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private ClienteService clienteService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        // Um cliente por pedido: cada um seria uma consulta a mais com carregamento lazy
+        for (int i = 0; i < PEDIDOS; i++) {
+            ClienteDTO cliente = clienteService.criar(ClienteDTO.builder()
+                    .nome("Cliente SQL " + i)
+                    .email("cliente.sql" + i + "@example.com")
+                    .build());
+            pedidoService.criar(PedidoDTO.builder()
+                    .clienteId(cliente.getId())
+                    .status(StatusPedido.RECEBIDO)
+                    .canal(CanalPedido.WHATSAPP)
+                    .itens(List.of(
+                            PedidoItemDTO.builder().nome("Marmita Fit Frango").precoUnit(new BigDecimal("25.90")).quantidade(1).build(),
+                            PedidoItemDTO.builder().nome("Suco Natural").precoUnit(new BigDecimal("8.00")).quantidade(2).build()))
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void deveListarPedidosPorStatusSemConsultaPorPedido() throws Exception {
+        // versão para o ETag (pedidos e clientes) + pedidos com cliente + itens
+        sql.noMaximo(4, () -> mockMvc.perform(get("/pedidos").param("status", "RECEBIDO"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(greaterThanOrEqualTo(PEDIDOS)))
+                .andExpect(jsonPath("$[0].nomeCliente").exists())
+                .andExpect(jsonPath("$[0].itens.length()").value(2)));
+    }
+
+    @Test
+    void deveMontarKanbanComUmaConsultaPorColuna() throws Exception {
+        // versão para o ETag (pedidos e clientes) + uma consulta por coluna (4) + itens de todas as colunas
+        sql.noMaximo(7, () -> mockMvc.perform(get("/pedidos/kanban"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.RECEBIDO.pedidos[0].itens").exists()));
+    }
+
+    @Test
+    void deveInformarStatementsSqlNoCabecalho() throws Exception {
+        // When
+        sql.zerar();
+        MvcResult resultado = mockMvc.perform(get("/pedidos").param("status", "RECEBIDO"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(ContadorSqlFilter.CABECALHO_STATEMENTS))
+                .andExpect(header().exists(ContadorSqlFilter.CABECALHO_TEMPO))
+                .andReturn();
+
+        // Then - o filtro vê os mesmos statements que o teste
+        assertThat(resultado.getResponse().getHeader(ContadorSqlFilter.CABECALHO_STATEMENTS))
+                .isEqualTo(Integer.toString(sql.getStatements()));
+    }
+}